@@ -9,8 +9,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
-import ru.practicum.client.StatsClient;
-import ru.practicum.dto.ViewStatsDto;
 import ru.practicum.dto.EndpointHitDto;
 import ru.practicum.ewm.category.model.Category;
 import ru.practicum.ewm.category.repository.CategoryRepository;
@@ -21,6 +19,7 @@ import ru.practicum.ewm.event.repository.EventRepository;
 import ru.practicum.ewm.exceptions.ConflictException;
 import ru.practicum.ewm.exceptions.NotFoundException;
 import ru.practicum.ewm.request.repository.ParticipationRequestRepository;
+import ru.practicum.ewm.stats.GuardedStatsClient;
 import ru.practicum.ewm.user.model.User;
 import ru.practicum.ewm.user.repository.UserRepository;
 
@@ -40,7 +39,7 @@ public class EventServiceImpl implements EventService {
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
-    private final StatsClient statsClient;
+    private final GuardedStatsClient statsClient;
     private final ParticipationRequestRepository requestRepository;
 
     private void requireInitiator(Event event, Long userId) {
@@ -71,14 +70,34 @@ public class EventServiceImpl implements EventService {
         event.setConfirmedRequests(confirmed);
     }
 
-    private long resolveViewsForUri(String uri) {
-        List<ViewStatsDto> stats = statsClient.getStats(
-                LocalDateTime.now().minusYears(1),
-                LocalDateTime.now().plusMinutes(1),
-                List.of(uri),
-                true
-        );
-        return stats.isEmpty() ? 0 : stats.get(0).getHits();
+    /**
+     * Falls back to the event's stored views, the last value read from stats, when stats is unavailable.
+     */
+    private long resolveViews(Event event, String uri) {
+        return statsClient.getStats(
+                        LocalDateTime.now().minusYears(1),
+                        LocalDateTime.now().plusMinutes(1),
+                        List.of(uri),
+                        true
+                )
+                .map(stats -> stats.isEmpty() ? 0L : stats.get(0).getHits())
+                .orElseGet(() -> event.getViews() == null ? 0L : event.getViews());
+    }
+
+    /**
+     * Sets the views of all {@code events} from one bulk stats call, keeping their stored views when stats is
+     * unavailable.
+     */
+    private void resolveViews(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<String> uris = events.stream()
+                .map(event -> "/events/" + event.getId())
+                .collect(Collectors.toList());
+        statsClient.getViews(LocalDateTime.now().minusYears(1), LocalDateTime.now().plusMinutes(1), uris, true)
+                .ifPresent(views -> events.forEach(event ->
+                        event.setViews(views.getOrDefault("/events/" + event.getId(), 0L))));
     }
 
     private Sort getSort(EventSort sort) {
@@ -164,7 +183,7 @@ public class EventServiceImpl implements EventService {
                 .timestamp(LocalDateTime.now())
                 .build());
 
-        long views = resolveViewsForUri(uri);
+        long views = resolveViews(event, uri);
         event.setViews(views);
 
         return EventMapper.toFullDto(event);
@@ -316,12 +335,14 @@ public class EventServiceImpl implements EventService {
                 ? Comparator.comparing(Event::getViews, Comparator.nullsFirst(Long::compareTo)).reversed()
                 : Comparator.comparing(Event::getEventDate, Comparator.nullsFirst(LocalDateTime::compareTo));
 
-        return filtered.stream()
+        List<Event> sorted = filtered.stream()
                 .sorted(cmp)
+                .collect(Collectors.toList());
+        resolveViews(sorted);
+
+        return sorted.stream()
                 .map(event -> {
                     refreshConfirmedCount(event);
-                    long views = resolveViewsForUri("/events/" + event.getId());
-                    event.setViews(views);
                     return EventMapper.toFullDto(event);
                 })
                 .collect(Collectors.toList());
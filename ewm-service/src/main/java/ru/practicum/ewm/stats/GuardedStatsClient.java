@@ -0,0 +1,159 @@
+package ru.practicum.ewm.stats;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.client.AsyncStatsClient;
+import ru.practicum.client.StatsClient;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.ViewStatsDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Calls {@link StatsClient} through a bulkhead and a circuit breaker so that a slow or unavailable stats-server
+ * degrades public endpoints instead of failing or hanging them.
+ * <p>
+ * At most {@code max-concurrent} calls are in flight; a call over the limit is not made. After
+ * {@code failure-threshold} consecutive failures the breaker opens and calls are skipped for
+ * {@code open-duration}; then one trial call is let through, which closes the breaker on success and reopens
+ * it on failure. A skipped {@link #getStats} or {@link #getViews} returns empty so the caller can fall back to
+ * the last known views; a skipped hit is dropped. Hits for an {@link AsyncStatsClient} bypass both, since its
+ * queue already spools them without blocking.
+ */
+@Slf4j
+@Component
+public class GuardedStatsClient {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final StatsClient statsClient;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Semaphore bulkhead;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openUntil;
+
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter rejected;
+    private final Counter shortCircuited;
+    private final Counter droppedHits;
+
+    public GuardedStatsClient(StatsClient statsClient,
+                              MeterRegistry meterRegistry,
+                              @Value("${ewm.stats.breaker.failure-threshold:5}") int failureThreshold,
+                              @Value("${ewm.stats.breaker.open-duration:30s}") Duration openDuration,
+                              @Value("${ewm.stats.bulkhead.max-concurrent:20}") int maxConcurrent) {
+        this.statsClient = statsClient;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.bulkhead = new Semaphore(maxConcurrent);
+
+        Gauge.builder("ewm.stats.breaker.state", state, s -> s.get().ordinal())
+                .description("Stats circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        this.succeeded = meterRegistry.counter("ewm.stats.calls", "outcome", "success");
+        this.failed = meterRegistry.counter("ewm.stats.calls", "outcome", "failure");
+        this.rejected = meterRegistry.counter("ewm.stats.calls", "outcome", "rejected");
+        this.shortCircuited = meterRegistry.counter("ewm.stats.calls", "outcome", "short_circuited");
+        this.droppedHits = meterRegistry.counter("ewm.stats.hits.dropped");
+    }
+
+    public void hit(EndpointHitDto endpointHitDto) {
+        if (statsClient instanceof AsyncStatsClient) {
+            statsClient.hit(endpointHitDto);
+            return;
+        }
+        Optional<Boolean> sent = call(() -> {
+            statsClient.hit(endpointHitDto);
+            return true;
+        });
+        if (sent.isEmpty()) {
+            droppedHits.increment();
+        }
+    }
+
+    /**
+     * Empty when the call was skipped or failed.
+     */
+    public Optional<List<ViewStatsDto>> getStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                 boolean unique) {
+        return call(() -> statsClient.getStats(start, end, uris, unique));
+    }
+
+    /**
+     * Hits per uri in one logical call however many uris there are; empty when the call was skipped or failed.
+     */
+    public Optional<Map<String, Long>> getViews(LocalDateTime start, LocalDateTime end, Collection<String> uris,
+                                                boolean unique) {
+        return call(() -> statsClient.getViews(start, end, uris, unique));
+    }
+
+    State state() {
+        return state.get();
+    }
+
+    private <T> Optional<T> call(Supplier<T> call) {
+        if (!bulkhead.tryAcquire()) {
+            rejected.increment();
+            return Optional.empty();
+        }
+        try {
+            if (!allowCall()) {
+                shortCircuited.increment();
+                return Optional.empty();
+            }
+            try {
+                T result = call.get();
+                onSuccess();
+                return Optional.of(result);
+            } catch (RuntimeException e) {
+                onFailure(e);
+                return Optional.empty();
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private boolean allowCall() {
+        return switch (state.get()) {
+            case CLOSED -> true;
+            case OPEN -> System.nanoTime() - openUntil >= 0 && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+            case HALF_OPEN -> false;
+        };
+    }
+
+    private void onSuccess() {
+        succeeded.increment();
+        consecutiveFailures.set(0);
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+            log.info("Stats circuit breaker closed");
+        }
+    }
+
+    private void onFailure(RuntimeException e) {
+        failed.increment();
+        if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openUntil = System.nanoTime() + openNanos;
+            consecutiveFailures.set(0);
+            if (state.getAndSet(State.OPEN) != State.OPEN) {
+                log.warn("Stats circuit breaker opened for {} ms after: {}", openNanos / 1_000_000, e.getMessage());
+            }
+        }
+    }
+}
@@ -21,7 +21,9 @@ import ru.practicum.ewm.user.model.User;
 import ru.practicum.ewm.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -238,12 +240,11 @@ class EventServiceImplAdminSearchTest {
 
         var events = eventRepository.findAll();
 
+        Map<String, Long> views = new HashMap<>();
         for (int i = 0; i < events.size(); i++) {
-            String uri = "/events/" + events.get(i).getId();
-            long hits = (i == 0) ? 5L : 1L;
-            when(statsClient.getStats(any(), any(), eq(List.of(uri)), anyBoolean()))
-                    .thenReturn(List.of(new ru.practicum.dto.ViewStatsDto("ewm-service", uri, hits)));
+            views.put("/events/" + events.get(i).getId(), (i == 0) ? 5L : 1L);
         }
+        when(statsClient.getViews(any(), any(), any(), anyBoolean())).thenReturn(views);
 
         var res = eventService.findAllAdmin(
                 null, null, null,
@@ -256,10 +257,10 @@ class EventServiceImplAdminSearchTest {
     }
 
     @Test
-    void findAllAdmin_shouldCallStatsPerEvent() {
+    void findAllAdmin_shouldFetchViewsOfAllEventsInOneCall() {
 
         reset(statsClient);
-        when(statsClient.getStats(any(), any(), any(), anyBoolean())).thenReturn(List.of());
+        when(statsClient.getViews(any(), any(), any(), anyBoolean())).thenReturn(Map.of());
 
         var res = eventService.findAllAdmin(
                 null, null, null,
@@ -267,8 +268,9 @@ class EventServiceImplAdminSearchTest {
                 EventSort.EVENT_DATE, 0, 10
         );
 
-        verify(statsClient, times(res.size()))
-                .getStats(any(), any(), any(), anyBoolean());
+        verify(statsClient, times(1)).getViews(any(), any(),
+                argThat(uris -> uris.size() == res.size()), anyBoolean());
+        verify(statsClient, never()).getStats(any(), any(), any(), anyBoolean());
     }
 
     @Test
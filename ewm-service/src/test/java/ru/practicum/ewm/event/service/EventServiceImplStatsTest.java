@@ -172,12 +172,32 @@ class EventServiceImplStatsTest {
     }
 
     @Test
-    void getPublicEvent_shouldPropagateStatsClientError() {
+    void getPublicEvent_shouldFallBackToStoredViews_whenStatsClientFails() {
+        event.setViews(11L);
+        eventRepository.save(event);
+        var uri = "/events/" + event.getId();
+        when(statsClient.getStats(any(), any(), eq(List.of(uri)), eq(true)))
+                .thenThrow(new RuntimeException("stats down"));
+
+        EventFullDto dto = eventService.getPublicEvent(event.getId(), "ip", uri);
+
+        assertEquals(11L, dto.getViews());
+    }
+
+    @Test
+    void getPublicEvent_shouldSkipStatsWhileBreakerIsOpen() {
         var uri = "/events/" + event.getId();
+        doThrow(new RuntimeException("stats down")).when(statsClient).hit(any());
         when(statsClient.getStats(any(), any(), eq(List.of(uri)), eq(true)))
                 .thenThrow(new RuntimeException("stats down"));
 
-        assertThrows(RuntimeException.class,
-                () -> eventService.getPublicEvent(event.getId(), "ip", uri));
+        for (int i = 0; i < 5; i++) {
+            eventService.getPublicEvent(event.getId(), "ip", uri);
+        }
+        clearInvocations(statsClient);
+        EventFullDto dto = eventService.getPublicEvent(event.getId(), "ip", uri);
+
+        assertEquals(0L, dto.getViews());
+        verifyNoInteractions(statsClient);
     }
 }
\ No newline at end of file
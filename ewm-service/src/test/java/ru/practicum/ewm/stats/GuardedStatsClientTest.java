@@ -0,0 +1,145 @@
+package ru.practicum.ewm.stats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.client.StatsClient;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.ViewStatsDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GuardedStatsClientTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2025, 2, 1, 0, 0);
+    private static final List<String> URIS = List.of("/events/1");
+
+    private final StatsClient statsClient = mock(StatsClient.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private GuardedStatsClient guarded(Duration openDuration, int maxConcurrent) {
+        return new GuardedStatsClient(statsClient, registry, 3, openDuration, maxConcurrent);
+    }
+
+    private double calls(String outcome) {
+        return registry.counter("ewm.stats.calls", "outcome", outcome).count();
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndSkipsCalls() {
+        when(statsClient.getStats(any(), any(), any(), anyBoolean())).thenThrow(new RuntimeException("down"));
+        GuardedStatsClient client = guarded(Duration.ofMinutes(1), 10);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Optional.empty(), client.getStats(START, END, URIS, true));
+        }
+        assertEquals(GuardedStatsClient.State.OPEN, client.state());
+
+        assertEquals(Optional.empty(), client.getStats(START, END, URIS, true));
+        verify(statsClient, times(3)).getStats(any(), any(), any(), anyBoolean());
+        assertEquals(1.0, calls("short_circuited"));
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        when(statsClient.getStats(any(), any(), any(), anyBoolean()))
+                .thenThrow(new RuntimeException("down"))
+                .thenThrow(new RuntimeException("down"))
+                .thenReturn(List.of())
+                .thenThrow(new RuntimeException("down"));
+        GuardedStatsClient client = guarded(Duration.ofMinutes(1), 10);
+
+        for (int i = 0; i < 4; i++) {
+            client.getStats(START, END, URIS, true);
+        }
+
+        assertEquals(GuardedStatsClient.State.CLOSED, client.state());
+    }
+
+    @Test
+    void trialCallAfterOpenDurationClosesBreaker() throws Exception {
+        List<ViewStatsDto> stats = List.of(new ViewStatsDto("ewm-service", "/events/1", 4L));
+        when(statsClient.getStats(any(), any(), any(), anyBoolean()))
+                .thenThrow(new RuntimeException("down"))
+                .thenThrow(new RuntimeException("down"))
+                .thenThrow(new RuntimeException("down"))
+                .thenReturn(stats);
+        GuardedStatsClient client = guarded(Duration.ofMillis(50), 10);
+        for (int i = 0; i < 3; i++) {
+            client.getStats(START, END, URIS, true);
+        }
+
+        Thread.sleep(100);
+
+        assertEquals(Optional.of(stats), client.getStats(START, END, URIS, true));
+        assertEquals(GuardedStatsClient.State.CLOSED, client.state());
+    }
+
+    @Test
+    void failedTrialCallReopensBreaker() throws Exception {
+        when(statsClient.getStats(any(), any(), any(), anyBoolean())).thenThrow(new RuntimeException("down"));
+        GuardedStatsClient client = guarded(Duration.ofMillis(50), 10);
+        for (int i = 0; i < 3; i++) {
+            client.getStats(START, END, URIS, true);
+        }
+
+        Thread.sleep(100);
+        client.getStats(START, END, URIS, true);
+
+        assertEquals(GuardedStatsClient.State.OPEN, client.state());
+        verify(statsClient, times(4)).getStats(any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void rejectsCallsOverBulkheadLimit() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(statsClient.getStats(any(), any(), any(), anyBoolean())).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        GuardedStatsClient client = guarded(Duration.ofMinutes(1), 1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> client.getStats(START, END, URIS, true));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+            assertEquals(Optional.empty(), client.getStats(START, END, URIS, true));
+            assertEquals(1.0, calls("rejected"));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void dropsHitsWhileOpen() {
+        doThrow(new RuntimeException("down")).when(statsClient).hit(any());
+        GuardedStatsClient client = guarded(Duration.ofMinutes(1), 10);
+        EndpointHitDto hit = EndpointHitDto.builder()
+                .app("ewm-service")
+                .uri("/events/1")
+                .ip("192.0.2.1")
+                .timestamp(START)
+                .build();
+
+        for (int i = 0; i < 5; i++) {
+            client.hit(hit);
+        }
+
+        verify(statsClient, times(3)).hit(any());
+        assertEquals(5.0, registry.counter("ewm.stats.hits.dropped").count());
+    }
+}
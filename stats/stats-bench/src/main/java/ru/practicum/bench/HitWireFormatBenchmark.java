@@ -0,0 +1,80 @@
+package ru.practicum.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitWireFormat;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and parsing a {@code /hits} request of {@code batch} hits as JSON and as {@link HitWireFormat} Smile.
+ * {@link #write} also reports the encoded bytes per hit as the {@code bytesPerHit} secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HitWireFormatBenchmark {
+
+    @Param({"json", "smile"})
+    private String format;
+
+    @Param({"1", "500"})
+    private int batch;
+
+    private ObjectMapper mapper;
+    private List<EndpointHitDto> hits;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = "smile".equals(format)
+                ? HitWireFormat.smileMapper()
+                : JsonMapper.builder().addModule(new JavaTimeModule()).build();
+        LocalDateTime base = LocalDateTime.of(2025, 7, 1, 0, 0);
+        hits = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            hits.add(new EndpointHitDto("ewm-main-service", "/events/" + i % 200,
+                    "10.0." + (i >> 8 & 0xff) + "." + (i & 0xff), base.plusSeconds(i)));
+        }
+        encoded = mapper.writeValueAsBytes(hits);
+    }
+
+    @Benchmark
+    public byte[] write(EncodedSize size) throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(hits);
+        size.bytesPerHit = (double) bytes.length / batch;
+        return bytes;
+    }
+
+    @Benchmark
+    public EndpointHitDto[] parse() throws IOException {
+        return mapper.readValue(encoded, EndpointHitDto[].class);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public double bytesPerHit;
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.service.StatsService;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-hit ingestion through {@code StatsServiceImpl.saveHit}: dictionary lookup, the endpoint_hit insert,
+ * rollup and sketch upserts and the in-memory counters, one transaction per hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestBenchmark {
+
+    private static final int URIS = 1000;
+
+    private ConfigurableApplicationContext context;
+    private StatsService service;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        context = StatsServerContext.start("ingest");
+        service = context.getBean(StatsService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void saveHit() {
+        long n = sequence++;
+        service.saveHit(new EndpointHitDto("ewm-main-service", "/events/" + n % URIS,
+                "10.0." + (n >> 8 & 0xff) + "." + (n & 0xff), LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.bench;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import ru.practicum.client.StatsClientTransport;
+import ru.practicum.dto.EndpointHitDto;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of posting one hit through each {@link StatsClientTransport} and through the bare
+ * {@code new RestTemplate()} ({@code HttpURLConnection}) used before, against a local Tomcat that answers 201
+ * at once. Add {@code -t 8} to measure it under concurrent callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsClientTransportBenchmark {
+
+    @Param({"URL_CONNECTION", "POOLED", "HTTP2"})
+    private String transport;
+
+    private WebServer server;
+    private RestTemplate restTemplate;
+    private String url;
+    private HttpEntity<EndpointHitDto> request;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new TomcatServletWebServerFactory(0).getWebServer(context ->
+                context.addServlet("hit", new HttpServlet() {
+                    @Override
+                    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                        req.getInputStream().readAllBytes();
+                        resp.setStatus(HttpServletResponse.SC_CREATED);
+                    }
+                }).addMapping("/hit"));
+        server.start();
+        url = "http://localhost:" + server.getPort() + "/hit";
+
+        ClientHttpRequestFactory requestFactory = "URL_CONNECTION".equals(transport)
+                ? new SimpleClientHttpRequestFactory()
+                : StatsClientTransport.valueOf(transport).requestFactory(50, Duration.ofSeconds(30),
+                        Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(2));
+        restTemplate = new RestTemplate(requestFactory);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        request = new HttpEntity<>(new EndpointHitDto("ewm-main-service", "/events/1", "10.0.0.1",
+                LocalDateTime.of(2025, 7, 1, 0, 0)), headers);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public Object postHit() {
+        return restTemplate.postForEntity(url, request, Void.class);
+    }
+}
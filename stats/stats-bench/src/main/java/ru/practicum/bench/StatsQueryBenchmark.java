@@ -0,0 +1,102 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.IpAddress;
+import ru.practicum.repository.HitWriter;
+import ru.practicum.repository.StatsRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * The four {@code StatsRepository} aggregations over a synthetic dataset of {@code hits} rows spread over
+ * 30 days, 3 apps, {@value #URIS} uris and {@value #IPS} ips. Each query covers the middle week; the uri filter
+ * selects {@value #FILTERED_URIS} uris.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsQueryBenchmark {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 7, 1, 0, 0);
+    private static final int DAYS = 30;
+    private static final int URIS = 1000;
+    private static final int IPS = 10_000;
+    private static final int FILTERED_URIS = 10;
+    private static final int BATCH = 5000;
+
+    @Param("100000")
+    private int hits;
+
+    @Param({"false", "true"})
+    private boolean unique;
+
+    @Param({"false", "true"})
+    private boolean withUris;
+
+    private ConfigurableApplicationContext context;
+    private StatsRepository repository;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private List<Integer> uriIds;
+
+    @Setup
+    public void setUp() {
+        context = StatsServerContext.start("query");
+        repository = context.getBean(StatsRepository.class);
+        HitWriter writer = context.getBean(HitWriter.class);
+        Random random = new Random(42);
+        List<EndpointHit> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < hits; i++) {
+            int ip = random.nextInt(IPS);
+            batch.add(new EndpointHit(null, 1 + random.nextInt(3), 1 + random.nextInt(URIS),
+                    IpAddress.parse("10.0." + (ip >> 8) + "." + (ip & 0xff)),
+                    BASE.plusSeconds(random.nextInt(DAYS * 24 * 3600))));
+            if (batch.size() == BATCH || i == hits - 1) {
+                writer.write(batch);
+                batch.clear();
+            }
+        }
+        start = BASE.plusDays(DAYS / 2 - 3);
+        end = start.plusDays(7);
+        uriIds = IntStream.rangeClosed(1, FILTERED_URIS).boxed().toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<HitCount> query() {
+        if (withUris) {
+            return unique
+                    ? repository.findAllUniqueStatsWithUris(start, end, uriIds)
+                    : repository.findAllStatsWithUris(start, end, uriIds);
+        }
+        return unique
+                ? repository.findAllUniqueStatsWithoutUris(start, end)
+                : repository.findAllStatsWithoutUris(start, end);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.practicum.bench;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.StatsServerApplication;
+
+/**
+ * Starts stats-server without a web server on an in-memory H2 database, so benchmarks call its beans directly.
+ */
+final class StatsServerContext {
+
+    private StatsServerContext() {
+    }
+
+    static ConfigurableApplicationContext start(String database) {
+        return new SpringApplicationBuilder(StatsServerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.sql.init.platform=h2",
+                        // stats-client is on the benchmark classpath and its beans are scanned too
+                        "--stats-server.url=http://localhost:9090",
+                        "--stats.partitioning.enabled=false");
+    }
+}
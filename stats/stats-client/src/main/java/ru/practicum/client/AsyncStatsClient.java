@@ -0,0 +1,252 @@
+package ru.practicum.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import ru.practicum.dto.EndpointHitDto;
+
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StatsClient} whose {@link #hit} returns at once: hits go to a bounded queue and a sender thread posts
+ * them to {@code /hits} once {@code batch-size} hits are queued or the oldest has waited {@code flush-interval}.
+ * A batch that failed before reaching stats-server, or that stats-server turned away with 429 or 503, is retried
+ * with exponential backoff up to {@code max-attempts} times, then dropped, so a slow or unavailable stats-server
+ * never blocks or fails the caller. Any other failure, a read timeout in particular, drops the batch at once:
+ * {@code /hits} is not idempotent and the batch may already be stored. On shutdown the queue is drained for at
+ * most {@code shutdown-timeout}.
+ */
+@Slf4j
+public class AsyncStatsClient extends StatsClient implements SmartLifecycle {
+
+    public enum OverflowPolicy {
+        /**
+         * A hit that does not fit in a full queue is dropped.
+         */
+        DROP_NEWEST,
+        /**
+         * The oldest queued hit is dropped to make room.
+         */
+        DROP_OLDEST
+    }
+
+    private final BlockingQueue<EndpointHitDto> queue;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final OverflowPolicy overflowPolicy;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration shutdownTimeout;
+
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter overflowCounter;
+    private final Counter failedCounter;
+    private final Counter shutdownCounter;
+
+    private volatile boolean running;
+    private Thread sender;
+
+    public AsyncStatsClient(RestTemplate restTemplate,
+                            StatsQueryCache queryCache,
+                            Executor bulkExecutor,
+                            MeterRegistry meterRegistry,
+                            int capacity,
+                            int batchSize,
+                            Duration flushInterval,
+                            OverflowPolicy overflowPolicy,
+                            int maxAttempts,
+                            Duration initialBackoff,
+                            Duration maxBackoff,
+                            Duration shutdownTimeout) {
+        super(restTemplate, queryCache, bulkExecutor);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.overflowPolicy = overflowPolicy;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.shutdownTimeout = shutdownTimeout;
+
+        Gauge.builder("stats.client.queue.depth", queue, BlockingQueue::size)
+                .description("Hits waiting to be sent to stats-server")
+                .register(meterRegistry);
+        Gauge.builder("stats.client.queue.capacity", () -> capacity)
+                .register(meterRegistry);
+        this.sentCounter = meterRegistry.counter("stats.client.hits.sent");
+        this.retryCounter = meterRegistry.counter("stats.client.send.retries");
+        this.overflowCounter = meterRegistry.counter("stats.client.hits.dropped", "reason", "overflow");
+        this.failedCounter = meterRegistry.counter("stats.client.hits.dropped", "reason", "failed");
+        this.shutdownCounter = meterRegistry.counter("stats.client.hits.dropped", "reason", "shutdown");
+    }
+
+    @Override
+    public void hit(EndpointHitDto endpointHitDto) {
+        if (!running) {
+            shutdownCounter.increment();
+            return;
+        }
+        if (queue.offer(endpointHitDto)) {
+            return;
+        }
+        overflowCounter.increment();
+        if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+            queue.poll();
+            if (!queue.offer(endpointHitDto)) {
+                overflowCounter.increment();
+            }
+        }
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        sender = new Thread(this::runSender, "stats-client-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            sender.join(shutdownTimeout.toMillis());
+            if (sender.isAlive()) {
+                sender.interrupt();
+                sender.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int left = queue.size();
+        if (left > 0) {
+            queue.clear();
+            shutdownCounter.increment(left);
+            log.warn("Stats client stopped with {} unsent hits", left);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // stop only after the web server has stopped serving the requests that report hits
+        return DEFAULT_PHASE - 4096;
+    }
+
+    private void runSender() {
+        while (running || !queue.isEmpty()) {
+            List<EndpointHitDto> batch = new ArrayList<>(batchSize);
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!batch.isEmpty()) {
+                send(batch);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    private void fillBatch(List<EndpointHitDto> batch) throws InterruptedException {
+        EndpointHitDto first = running ? queue.poll(flushInterval.toNanos(), TimeUnit.NANOSECONDS) : queue.poll();
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            EndpointHitDto next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void send(List<EndpointHitDto> batch) {
+        long backoff = initialBackoff.toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                hits(batch);
+                sentCounter.increment(batch.size());
+                return;
+            } catch (RestClientException e) {
+                if (!isRetryable(e) || attempt >= maxAttempts || !sleep(backoff)) {
+                    failedCounter.increment(batch.size());
+                    log.warn("Dropped {} hits after {} attempts to send them: {}", batch.size(), attempt,
+                            e.getMessage());
+                    return;
+                }
+                retryCounter.increment();
+                backoff = Math.min(backoff * 2, maxBackoff.toMillis());
+            }
+        }
+    }
+
+    /**
+     * Whether stats-server certainly did not store the batch: the connection was never made, or the server
+     * rejected the request before processing it.
+     */
+    static boolean isRetryable(RestClientException e) {
+        if (e instanceof HttpStatusCodeException statusException) {
+            int status = statusException.getStatusCode().value();
+            return status == HttpStatus.TOO_MANY_REQUESTS.value() || status == HttpStatus.SERVICE_UNAVAILABLE.value();
+        }
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException
+                    || cause instanceof UnknownHostException
+                    || cause instanceof ConnectTimeoutException
+                    || cause instanceof HttpConnectTimeoutException
+                    || cause instanceof ConnectionRequestTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
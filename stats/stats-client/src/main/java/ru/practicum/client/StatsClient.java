@@ -4,32 +4,128 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitWireFormat;
+import ru.practicum.dto.StatsQueryDto;
 import ru.practicum.dto.ViewStatsDto;
 
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @RequiredArgsConstructor
 public class StatsClient {
 
     private final RestTemplate restTemplate;
+    private final StatsQueryCache queryCache;
+    private final Executor bulkExecutor;
 
     @Value("${stats-server.url}")
     private String statsServerUrl;
 
+    /**
+     * {@code json} sends hits as plain JSON, {@code smile} in {@link HitWireFormat}; only switch to smile once every
+     * stats-server accepts it, older ones answer 415.
+     */
+    @Value("${stats-server.wire-format:json}")
+    private String wireFormat;
+
+    /**
+     * Uris per {@code POST /stats} request made by {@link #getViews}; must not exceed the server's
+     * {@code stats.query.max-uris}.
+     */
+    @Value("${stats-client.bulk.chunk-size:200}")
+    private int chunkSize = 200;
+
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     public void hit(EndpointHitDto endpointHitDto) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<EndpointHitDto> request = new HttpEntity<>(endpointHitDto, headers);
+        HttpEntity<EndpointHitDto> request = new HttpEntity<>(endpointHitDto, hitHeaders());
 
         restTemplate.postForEntity(statsServerUrl + "/hit", request, Void.class);
     }
 
+    /**
+     * Sends {@code hits} in one request to {@code /hits}, blocking until stats-server has stored them.
+     */
+    public void hits(List<EndpointHitDto> hits) {
+        HttpEntity<List<EndpointHitDto>> request = new HttpEntity<>(hits, hitHeaders());
+
+        restTemplate.postForEntity(statsServerUrl + "/hits", request, Void.class);
+    }
+
+    /**
+     * Served from {@link StatsQueryCache} when {@code stats-client.cache.enabled} is set.
+     */
     public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return queryCache.get(start, end, uris, unique, () -> fetchStats(start, end, uris, unique));
+    }
+
+    /**
+     * Hits per uri for any number of {@code uris}, 0 for a uri without hits. The uris go in the body of
+     * {@code POST /stats} in chunks of {@code chunk-size}: the first chunk is fetched on the calling thread, the
+     * rest in parallel on the bulk executor. Not cached.
+     */
+    public Map<String, Long> getViews(LocalDateTime start, LocalDateTime end, Collection<String> uris,
+                                      boolean unique) {
+        List<String> distinct = List.copyOf(new LinkedHashSet<>(uris));
+        Map<String, Long> views = new LinkedHashMap<>();
+        if (distinct.isEmpty()) {
+            return views;
+        }
+        List<CompletableFuture<List<ViewStatsDto>>> chunks = new ArrayList<>();
+        for (int from = chunkSize; from < distinct.size(); from += chunkSize) {
+            List<String> chunk = distinct.subList(from, Math.min(from + chunkSize, distinct.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> postStats(start, end, chunk, unique), bulkExecutor));
+        }
+        List<ViewStatsDto> first = postStats(start, end, distinct.subList(0, Math.min(chunkSize, distinct.size())),
+                unique);
+
+        distinct.forEach(uri -> views.put(uri, 0L));
+        addViews(views, first);
+        for (CompletableFuture<List<ViewStatsDto>> chunk : chunks) {
+            try {
+                addViews(views, chunk.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        return views;
+    }
+
+    private List<ViewStatsDto> postStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                         boolean unique) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<StatsQueryDto> request = new HttpEntity<>(new StatsQueryDto(start, end, uris, unique), headers);
+
+        ResponseEntity<ViewStatsDto[]> response =
+                restTemplate.postForEntity(statsServerUrl + "/stats", request, ViewStatsDto[].class);
+        return List.of(response.getBody());
+    }
+
+    /**
+     * Rows come sorted by hits, so for a uri counted under several apps this keeps the first row as
+     * {@link #getStats} callers do.
+     */
+    private static void addViews(Map<String, Long> views, List<ViewStatsDto> stats) {
+        for (ViewStatsDto stat : stats) {
+            views.merge(stat.getUri(), stat.getHits(), Math::max);
+        }
+    }
+
+    private List<ViewStatsDto> fetchStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                          boolean unique) {
         String uri = statsServerUrl + "/stats?start=" + start.format(FORMATTER)
                 + "&end=" + end.format(FORMATTER)
                 + (uris != null && !uris.isEmpty() ? "&uris=" + String.join(",", uris) : "")
@@ -38,4 +134,31 @@ public class StatsClient {
         ResponseEntity<ViewStatsDto[]> response = restTemplate.getForEntity(uri, ViewStatsDto[].class);
         return List.of(response.getBody());
     }
-}
\ No newline at end of file
+
+    /**
+     * Totals per uri pattern such as {@code /events/*} or {@code /events/{id}}; each row's uri is the pattern.
+     */
+    public List<ViewStatsDto> getPatternStats(LocalDateTime start, LocalDateTime end, List<String> patterns,
+                                              boolean unique) {
+        URI uri = UriComponentsBuilder.fromHttpUrl(statsServerUrl + "/stats")
+                .queryParam("start", start.format(FORMATTER))
+                .queryParam("end", end.format(FORMATTER))
+                .queryParam("uris", patterns)
+                .queryParam("unique", unique)
+                .queryParam("groupBy", "pattern")
+                .build()
+                .encode()
+                .toUri();
+
+        ResponseEntity<ViewStatsDto[]> response = restTemplate.getForEntity(uri, ViewStatsDto[].class);
+        return List.of(response.getBody());
+    }
+
+    private HttpHeaders hitHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType("json".equalsIgnoreCase(wireFormat)
+                ? MediaType.APPLICATION_JSON
+                : MediaType.parseMediaType(HitWireFormat.SMILE_VALUE));
+        return headers;
+    }
+}
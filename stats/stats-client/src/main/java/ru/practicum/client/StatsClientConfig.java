@@ -1,19 +1,99 @@
 package ru.practicum.client;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
+import ru.practicum.dto.HitWireFormat;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 public class StatsClientConfig {
 
+    /**
+     * Both transports block with locks rather than monitors, so calls made from virtual threads do not pin their
+     * carrier. Smile is written with {@link HitWireFormat#smileMapper()}.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(
+            @Value("${stats-server.http.transport:POOLED}") StatsClientTransport transport,
+            @Value("${stats-server.http.max-connections:50}") int maxConnections,
+            @Value("${stats-server.http.keep-alive:30s}") Duration keepAlive,
+            @Value("${stats-server.http.pool-timeout:500ms}") Duration poolTimeout,
+            @Value("${stats-server.http.connect-timeout:1s}") Duration connectTimeout,
+            @Value("${stats-server.http.read-timeout:2s}") Duration readTimeout) {
+        RestTemplate restTemplate = new RestTemplate(
+                transport.requestFactory(maxConnections, keepAlive, poolTimeout, connectTimeout, readTimeout));
+        MappingJackson2SmileHttpMessageConverter smile =
+                new MappingJackson2SmileHttpMessageConverter(HitWireFormat.smileMapper());
+        restTemplate.getMessageConverters().replaceAll(converter ->
+                converter instanceof MappingJackson2SmileHttpMessageConverter ? smile : converter);
+        return restTemplate;
     }
 
     @Bean
-    public StatsClient statsClient(RestTemplate restTemplate) {
-        return new StatsClient(restTemplate);
+    public StatsQueryCache statsQueryCache(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${stats-client.cache.enabled:false}") boolean enabled,
+            @Value("${stats-client.cache.max-size:1000}") long maxSize,
+            @Value("${stats-client.cache.ttl:5s}") Duration ttl,
+            @Value("${stats-client.cache.granularity:1m}") Duration granularity) {
+        return new StatsQueryCache(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), enabled, maxSize,
+                ttl, granularity);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "stats-client.async", name = "enabled", havingValue = "false",
+            matchIfMissing = true)
+    public StatsClient statsClient(RestTemplate restTemplate, StatsQueryCache statsQueryCache,
+                                   @Value("${stats-client.bulk.parallelism:4}") int parallelism) {
+        return new StatsClient(restTemplate, statsQueryCache, bulkExecutor(parallelism));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "stats-client.async", name = "enabled", havingValue = "true")
+    public AsyncStatsClient asyncStatsClient(
+            RestTemplate restTemplate,
+            StatsQueryCache statsQueryCache,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${stats-client.bulk.parallelism:4}") int parallelism,
+            @Value("${stats-client.async.capacity:10000}") int capacity,
+            @Value("${stats-client.async.batch-size:500}") int batchSize,
+            @Value("${stats-client.async.flush-interval:1s}") Duration flushInterval,
+            @Value("${stats-client.async.overflow-policy:DROP_NEWEST}") AsyncStatsClient.OverflowPolicy overflowPolicy,
+            @Value("${stats-client.async.max-attempts:5}") int maxAttempts,
+            @Value("${stats-client.async.initial-backoff:200ms}") Duration initialBackoff,
+            @Value("${stats-client.async.max-backoff:5s}") Duration maxBackoff,
+            @Value("${stats-client.async.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        return new AsyncStatsClient(restTemplate, statsQueryCache, bulkExecutor(parallelism),
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), capacity, batchSize, flushInterval,
+                overflowPolicy, maxAttempts, initialBackoff, maxBackoff, shutdownTimeout);
+    }
+
+    /**
+     * Runs the chunks of {@link StatsClient#getViews} after the first; not a bean, so it does not displace the
+     * application's own task executor. Idle threads exit.
+     */
+    private static Executor bulkExecutor(int parallelism) {
+        AtomicInteger threads = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "stats-client-bulk-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
-}
\ No newline at end of file
+}
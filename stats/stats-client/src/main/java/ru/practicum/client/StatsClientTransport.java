@@ -0,0 +1,75 @@
+package ru.practicum.client;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * HTTP transports for {@link StatsClient}. Both keep connections alive between calls and bound every call by
+ * {@code connectTimeout} and {@code readTimeout}, so a slow stats-server fails calls instead of holding threads.
+ */
+public enum StatsClientTransport {
+
+    /**
+     * Apache HttpClient over HTTP/1.1 with a pool of at most {@code maxConnections} keep-alive connections.
+     * A call waits at most {@code poolTimeout} for a free connection; idle connections are closed after
+     * {@code keepAlive}.
+     */
+    POOLED {
+        @Override
+        public ClientHttpRequestFactory requestFactory(int maxConnections, Duration keepAlive, Duration poolTimeout,
+                                                       Duration connectTimeout, Duration readTimeout) {
+            PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                    .setMaxConnTotal(maxConnections)
+                    .setMaxConnPerRoute(maxConnections)
+                    .setDefaultConnectionConfig(ConnectionConfig.custom()
+                            .setConnectTimeout(Timeout.of(connectTimeout))
+                            .setSocketTimeout(Timeout.of(readTimeout))
+                            .build())
+                    .build();
+            CloseableHttpClient httpClient = HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectionRequestTimeout(Timeout.of(poolTimeout))
+                            .setResponseTimeout(Timeout.of(readTimeout))
+                            .build())
+                    .setKeepAliveStrategy((response, context) -> TimeValue.of(keepAlive))
+                    .evictIdleConnections(TimeValue.of(keepAlive))
+                    .build();
+            return new HttpComponentsClientHttpRequestFactory(httpClient);
+        }
+    },
+
+    /**
+     * JDK {@link HttpClient} preferring HTTP/2, which multiplexes concurrent calls over one connection and falls
+     * back to HTTP/1.1 keep-alive when the server does not upgrade. The JDK client does not cap connections.
+     */
+    HTTP2 {
+        @Override
+        public ClientHttpRequestFactory requestFactory(int maxConnections, Duration keepAlive, Duration poolTimeout,
+                                                       Duration connectTimeout, Duration readTimeout) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(connectTimeout)
+                    .build();
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+            requestFactory.setReadTimeout(readTimeout);
+            return requestFactory;
+        }
+    };
+
+    public abstract ClientHttpRequestFactory requestFactory(int maxConnections, Duration keepAlive,
+                                                            Duration poolTimeout, Duration connectTimeout,
+                                                            Duration readTimeout);
+}
@@ -0,0 +1,94 @@
+package ru.practicum.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import ru.practicum.cache.SingleFlight;
+import ru.practicum.dto.ViewStatsDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of {@link StatsClient#getStats} results keyed on the uris and the unique flag. Callers ask
+ * for windows relative to now, so the window bounds are floored to whole {@code granularity} steps and are part
+ * of the key only at that resolution; within one step and one {@code ttl} a caller may get the result fetched
+ * for a slightly earlier window.
+ * <p>
+ * Concurrent misses for the same key share one remote call through {@link SingleFlight}: the first caller
+ * fetches on its own thread, the others wait for its result or its exception. A failed call is not cached.
+ */
+public class StatsQueryCache {
+
+    record Key(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+    }
+
+    private final boolean enabled;
+    private final long granularitySeconds;
+    private final Cache<Key, List<ViewStatsDto>> cache;
+    private final SingleFlight<Key, List<ViewStatsDto>> loads = new SingleFlight<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public StatsQueryCache(MeterRegistry meterRegistry, boolean enabled, long maxSize, Duration ttl,
+                           Duration granularity) {
+        this.enabled = enabled;
+        this.granularitySeconds = granularity.toSeconds();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        Gauge.builder("stats.client.cache.size", cache, Cache::estimatedSize)
+                .register(meterRegistry);
+        this.hits = meterRegistry.counter("stats.client.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("stats.client.cache.requests", "result", "miss");
+        this.coalesced = meterRegistry.counter("stats.client.cache.requests", "result", "coalesced");
+    }
+
+    public List<ViewStatsDto> get(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                  Supplier<List<ViewStatsDto>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = key(start, end, uris, unique);
+        List<ViewStatsDto> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        return loads.load(key, () -> {
+            // a load that finished since the lookup above has already cached its result
+            List<ViewStatsDto> loaded = cache.asMap().get(key);
+            if (loaded != null) {
+                hits.increment();
+                return loaded;
+            }
+            misses.increment();
+            loaded = loader.get();
+            cache.put(key, loaded);
+            return loaded;
+        }, coalesced::increment);
+    }
+
+    Key key(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return new Key(floor(start), floor(end),
+                uris == null || uris.isEmpty() ? null : List.copyOf(new TreeSet<>(uris)),
+                unique);
+    }
+
+    private LocalDateTime floor(LocalDateTime time) {
+        if (granularitySeconds <= 0) {
+            return time;
+        }
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(seconds, granularitySeconds) * granularitySeconds,
+                0, ZoneOffset.UTC);
+    }
+}
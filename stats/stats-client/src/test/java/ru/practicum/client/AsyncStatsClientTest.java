@@ -0,0 +1,185 @@
+package ru.practicum.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mockito;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import ru.practicum.dto.EndpointHitDto;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AsyncStatsClientTest {
+
+    private final RestTemplate restTemplate = Mockito.mock(RestTemplate.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private AsyncStatsClient client(int capacity, int batchSize, AsyncStatsClient.OverflowPolicy policy) {
+        StatsQueryCache noCache = new StatsQueryCache(registry, false, 0, Duration.ZERO, Duration.ZERO);
+        return new AsyncStatsClient(restTemplate, noCache, Runnable::run, registry, capacity, batchSize,
+                Duration.ofMillis(50), policy, 3, Duration.ofMillis(10), Duration.ofMillis(20), Duration.ofSeconds(5));
+    }
+
+    private static EndpointHitDto hit(String uri) {
+        return new EndpointHitDto("ewm-main-service", uri, "127.0.0.1", LocalDateTime.of(2025, 7, 15, 12, 0));
+    }
+
+    @Test
+    void sendsQueuedHitsAsOneBatch() {
+        AsyncStatsClient client = client(100, 3, AsyncStatsClient.OverflowPolicy.DROP_NEWEST);
+        client.start();
+
+        client.hit(hit("/events/1"));
+        client.hit(hit("/events/2"));
+        client.hit(hit("/events/3"));
+
+        verify(restTemplate, timeout(2000)).postForEntity(anyString(), argThat(batchOf(3)), eq(Void.class));
+        verify(restTemplate, never()).postForEntity(Mockito.endsWith("/hit"), any(), eq(Void.class));
+        client.stop();
+        assertThat(registry.counter("stats.client.hits.sent").count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void retriesFailedBatchWithBackoff() {
+        when(restTemplate.postForEntity(anyString(), any(), eq(Void.class)))
+                .thenThrow(new ResourceAccessException("stats-server is down",
+                        new ConnectException("Connection refused")))
+                .thenReturn(ResponseEntity.ok().build());
+        AsyncStatsClient client = client(100, 1, AsyncStatsClient.OverflowPolicy.DROP_NEWEST);
+        client.start();
+
+        client.hit(hit("/events/1"));
+
+        verify(restTemplate, timeout(2000).times(2)).postForEntity(anyString(), argThat(batchOf(1)), eq(Void.class));
+        client.stop();
+        assertThat(registry.counter("stats.client.send.retries").count()).isEqualTo(1.0);
+        assertThat(registry.counter("stats.client.hits.sent").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void dropsBatchAfterMaxAttempts() {
+        when(restTemplate.postForEntity(anyString(), any(), eq(Void.class)))
+                .thenThrow(new ResourceAccessException("stats-server is down",
+                        new ConnectException("Connection refused")));
+        AsyncStatsClient client = client(100, 2, AsyncStatsClient.OverflowPolicy.DROP_NEWEST);
+        client.start();
+
+        client.hit(hit("/events/1"));
+        client.hit(hit("/events/2"));
+
+        verify(restTemplate, timeout(2000).times(3)).postForEntity(anyString(), any(), eq(Void.class));
+        client.stop();
+        assertThat(registry.counter("stats.client.hits.dropped", "reason", "failed").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void retriesBatchRejectedWithTooManyRequests() {
+        when(restTemplate.postForEntity(anyString(), any(), eq(Void.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "busy", null, null, null))
+                .thenReturn(ResponseEntity.ok().build());
+        AsyncStatsClient client = client(100, 1, AsyncStatsClient.OverflowPolicy.DROP_NEWEST);
+        client.start();
+
+        client.hit(hit("/events/1"));
+
+        verify(restTemplate, timeout(2000).times(2)).postForEntity(anyString(), any(), eq(Void.class));
+        client.stop();
+        assertThat(registry.counter("stats.client.hits.sent").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void doesNotRetryBatchThatMayHaveBeenStored() {
+        when(restTemplate.postForEntity(anyString(), any(), eq(Void.class)))
+                .thenThrow(new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out")))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "bad hit", null, null, null))
+                .thenReturn(ResponseEntity.ok().build());
+        AsyncStatsClient client = client(100, 1, AsyncStatsClient.OverflowPolicy.DROP_NEWEST);
+        client.start();
+
+        client.hit(hit("/events/1"));
+        client.hit(hit("/events/2"));
+        client.stop();
+
+        verify(restTemplate, times(2)).postForEntity(anyString(), any(), eq(Void.class));
+        assertThat(registry.counter("stats.client.send.retries").count()).isZero();
+        assertThat(registry.counter("stats.client.hits.dropped", "reason", "failed").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void dropNewestKeepsQueuedHits() throws Exception {
+        assertThat(sendWithFullQueue(AsyncStatsClient.OverflowPolicy.DROP_NEWEST)).containsExactly("/a", "/b", "/c");
+        assertThat(registry.counter("stats.client.hits.dropped", "reason", "overflow").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void dropOldestMakesRoomForNewHits() throws Exception {
+        assertThat(sendWithFullQueue(AsyncStatsClient.OverflowPolicy.DROP_OLDEST)).containsExactly("/a", "/c", "/d");
+        assertThat(registry.counter("stats.client.hits.dropped", "reason", "overflow").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void drainsQueueOnStop() {
+        AsyncStatsClient client = client(100, 1000, AsyncStatsClient.OverflowPolicy.DROP_NEWEST);
+        client.start();
+        client.hit(hit("/events/1"));
+        client.hit(hit("/events/2"));
+
+        client.stop();
+
+        verify(restTemplate).postForEntity(anyString(), argThat(batchOf(2)), eq(Void.class));
+        assertThat(client.depth()).isZero();
+        assertThat(client.isRunning()).isFalse();
+    }
+
+    /**
+     * Holds the first hit in a blocked send while three more arrive at a queue of two, and returns the uris sent.
+     */
+    private List<String> sendWithFullQueue(AsyncStatsClient.OverflowPolicy policy) throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        when(restTemplate.postForEntity(anyString(), any(), eq(Void.class))).thenAnswer(invocation -> {
+            HttpEntity<?> request = invocation.getArgument(1);
+            ((List<?>) request.getBody()).forEach(hit -> sent.add(((EndpointHitDto) hit).getUri()));
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return ResponseEntity.ok().build();
+        });
+        AsyncStatsClient client = client(2, 1, policy);
+        client.start();
+
+        client.hit(hit("/a"));
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        client.hit(hit("/b"));
+        client.hit(hit("/c"));
+        client.hit(hit("/d"));
+        release.countDown();
+        client.stop();
+        return sent;
+    }
+
+    private static ArgumentMatcher<Object> batchOf(int size) {
+        return request -> request instanceof HttpEntity<?> entity
+                && entity.getBody() instanceof List<?> hits
+                && hits.size() == size;
+    }
+}
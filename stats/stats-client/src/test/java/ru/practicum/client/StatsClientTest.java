@@ -0,0 +1,98 @@
+package ru.practicum.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+import ru.practicum.dto.StatsQueryDto;
+import ru.practicum.dto.ViewStatsDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StatsClientTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2025, 2, 1, 0, 0);
+
+    private final RestTemplate restTemplate = Mockito.mock(RestTemplate.class);
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final List<List<String>> requestedChunks = new CopyOnWriteArrayList<>();
+    private StatsClient client;
+
+    @BeforeEach
+    void setUp() {
+        StatsQueryCache noCache = new StatsQueryCache(new SimpleMeterRegistry(), false, 0, Duration.ZERO,
+                Duration.ZERO);
+        client = new StatsClient(restTemplate, noCache, executor);
+        ReflectionTestUtils.setField(client, "statsServerUrl", "http://stats-server:9090");
+        ReflectionTestUtils.setField(client, "chunkSize", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void answerWithHitsPerUri() {
+        when(restTemplate.postForEntity(endsWith("/stats"), any(), eq(ViewStatsDto[].class))).thenAnswer(call -> {
+            StatsQueryDto query = ((HttpEntity<StatsQueryDto>) call.getArgument(1)).getBody();
+            requestedChunks.add(query.getUris());
+            return ResponseEntity.ok(query.getUris().stream()
+                    .filter(uri -> !uri.equals("/events/4"))
+                    .map(uri -> new ViewStatsDto("ewm-service", uri, (long) uri.length() + 10))
+                    .toArray(ViewStatsDto[]::new));
+        });
+    }
+
+    @Test
+    void getViewsPostsUrisInChunksAndMergesResults() {
+        answerWithHitsPerUri();
+
+        Map<String, Long> views = client.getViews(START, END,
+                List.of("/events/1", "/events/2", "/events/3", "/events/4", "/events/5", "/events/1"), true);
+
+        assertThat(requestedChunks).containsExactlyInAnyOrder(
+                List.of("/events/1", "/events/2"), List.of("/events/3", "/events/4"), List.of("/events/5"));
+        assertThat(views).containsExactly(
+                Map.entry("/events/1", 19L), Map.entry("/events/2", 19L), Map.entry("/events/3", 19L),
+                Map.entry("/events/4", 0L), Map.entry("/events/5", 19L));
+    }
+
+    @Test
+    void getViewsMakesNoCallForNoUris() {
+        assertThat(client.getViews(START, END, List.of(), false)).isEmpty();
+
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void getViewsFailsWhenAnyChunkFails() {
+        when(restTemplate.postForEntity(endsWith("/stats"), any(), eq(ViewStatsDto[].class)))
+                .thenReturn(ResponseEntity.ok(new ViewStatsDto[0]))
+                .thenThrow(HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "busy", null, null, null));
+
+        assertThatThrownBy(() -> client.getViews(START, END, List.of("/a", "/b", "/c"), false))
+                .isInstanceOf(HttpServerErrorException.class);
+    }
+}
@@ -0,0 +1,155 @@
+package ru.practicum.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.ViewStatsDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatsQueryCacheTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 7, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2025, 7, 15, 12, 0, 10);
+    private static final List<ViewStatsDto> RESULT = List.of(new ViewStatsDto("ewm", "/events/1", 3L));
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StatsQueryCache cache =
+            new StatsQueryCache(registry, true, 100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+    private double requests(String result) {
+        return registry.counter("stats.client.cache.requests", "result", result).count();
+    }
+
+    @Test
+    void servesRepeatedQueryFromCacheWithinGranularity() {
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.get(START, END, List.of("/events/1"), true, () -> {
+            calls.incrementAndGet();
+            return RESULT;
+        });
+        List<ViewStatsDto> second = cache.get(START, END.plusSeconds(20), List.of("/events/1"), true, () -> {
+            calls.incrementAndGet();
+            return RESULT;
+        });
+
+        assertThat(second).isEqualTo(RESULT);
+        assertThat(calls).hasValue(1);
+        assertThat(requests("miss")).isEqualTo(1.0);
+        assertThat(requests("hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    void keysOnUniqueFlag() {
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.get(START, END, List.of("/events/1"), true, () -> List.of(new ViewStatsDto("ewm", "/events/1",
+                (long) calls.incrementAndGet())));
+        List<ViewStatsDto> all = cache.get(START, END, List.of("/events/1"), false, () ->
+                List.of(new ViewStatsDto("ewm", "/events/1", (long) calls.incrementAndGet())));
+
+        assertThat(calls).hasValue(2);
+        assertThat(all.get(0).getHits()).isEqualTo(2L);
+    }
+
+    @Test
+    void coalescesConcurrentMisses() throws Exception {
+        int callers = 8;
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            Future<List<ViewStatsDto>> first = executor.submit(() ->
+                    cache.get(START, END, List.of("/events/1"), true, () -> {
+                        calls.incrementAndGet();
+                        await(release);
+                        return RESULT;
+                    }));
+            while (calls.get() == 0) {
+                Thread.onSpinWait();
+            }
+            List<Future<List<ViewStatsDto>>> waiting = new ArrayList<>();
+            for (int i = 1; i < callers; i++) {
+                waiting.add(executor.submit(() -> cache.get(START, END, List.of("/events/1"), true, () -> {
+                    calls.incrementAndGet();
+                    return RESULT;
+                })));
+            }
+            while (requests("coalesced") < callers - 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(RESULT);
+            for (Future<List<ViewStatsDto>> result : waiting) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(RESULT);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(calls).hasValue(1);
+        assertThat(requests("miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    void doesNotCacheFailures() {
+        assertThatThrownBy(() -> cache.get(START, END, List.of("/events/1"), true, () -> {
+            throw new IllegalStateException("stats-server is down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        List<ViewStatsDto> result = cache.get(START, END, List.of("/events/1"), true, () -> RESULT);
+
+        assertThat(result).isEqualTo(RESULT);
+        assertThat(requests("miss")).isEqualTo(2.0);
+    }
+
+    @Test
+    void coalescedCallersGetTheLoadFailure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<ViewStatsDto>> first = executor.submit(() ->
+                    cache.get(START, END, List.of("/events/1"), true, () -> {
+                        await(release);
+                        throw new IllegalStateException("stats-server is down");
+                    }));
+            while (requests("miss") == 0) {
+                Thread.onSpinWait();
+            }
+            Future<List<ViewStatsDto>> waiting = executor.submit(() ->
+                    cache.get(START, END, List.of("/events/1"), true, () -> RESULT));
+            while (requests("coalesced") == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> waiting.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(cache.get(START, END, List.of("/events/1"), true, () -> RESULT)).isEqualTo(RESULT);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
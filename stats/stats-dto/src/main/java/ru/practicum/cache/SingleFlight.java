@@ -0,0 +1,72 @@
+package ru.practicum.cache;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the loader on its own thread, callers
+ * arriving while it runs wait for its outcome instead of loading again. A failed load is not remembered; every
+ * caller of that load gets the loader's own exception and the next caller loads again.
+ * <p>
+ * Only loads in flight are held here; caching results is up to the caller's loader.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+
+    public V load(K key, Supplier<V> loader) {
+        return load(key, loader, () -> { });
+    }
+
+    /**
+     * @param onJoin run before a caller starts waiting for a load already in flight
+     */
+    public V load(K key, Supplier<V> loader, Runnable onJoin) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> running = loads.putIfAbsent(key, created);
+        if (running == null) {
+            return run(key, created, loader);
+        }
+        onJoin.run();
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public Set<K> keys() {
+        return loads.keySet();
+    }
+
+    /**
+     * Lets later callers of {@code key} load again; callers already waiting still get the running load's outcome.
+     */
+    public void forget(K key) {
+        loads.remove(key);
+    }
+
+    private V run(K key, CompletableFuture<V> created, Supplier<V> loader) {
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            loads.remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+        loads.remove(key, created);
+        created.complete(value);
+        return value;
+    }
+}
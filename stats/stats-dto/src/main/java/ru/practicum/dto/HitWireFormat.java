@@ -0,0 +1,70 @@
+package ru.practicum.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary encoding of {@link EndpointHitDto} for {@code /hit} and {@code /hits}: Smile (binary JSON) where field
+ * names and short strings such as the app name are written once per request and back-referenced after that,
+ * and the timestamp is an epoch-millisecond number (UTC) instead of a formatted string.
+ */
+public final class HitWireFormat {
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    private HitWireFormat() {
+    }
+
+    public static ObjectMapper smileMapper() {
+        SmileFactory factory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return new SmileMapper(factory).addMixIn(EndpointHitDto.class, EpochMillisTimestamp.class);
+    }
+
+    private abstract static class EpochMillisTimestamp {
+        @JsonSerialize(using = EpochMillisSerializer.class)
+        @JsonDeserialize(using = EpochMillisDeserializer.class)
+        private LocalDateTime timestamp;
+    }
+
+    private static final class EpochMillisSerializer extends StdSerializer<LocalDateTime> {
+
+        private EpochMillisSerializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeNumber(value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    private static final class EpochMillisDeserializer extends StdDeserializer<LocalDateTime> {
+
+        private EpochMillisDeserializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getLongValue()), ZoneOffset.UTC);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Body of {@code POST /stats}: the same question as {@code GET /stats}, with the uris in the body so a long list
+ * is not limited by the URL length.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsQueryDto {
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime start;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime end;
+
+    private List<String> uris;
+    private boolean unique;
+}
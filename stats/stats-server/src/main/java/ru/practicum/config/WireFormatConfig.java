@@ -0,0 +1,29 @@
+package ru.practicum.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.practicum.dto.HitWireFormat;
+
+import java.util.List;
+
+/**
+ * Reads and writes {@code application/x-jackson-smile} with {@link HitWireFormat#smileMapper()}, so binary hits
+ * carry epoch-millisecond timestamps. The converter keeps the place of the default Smile converter, after JSON,
+ * so responses stay JSON unless the client asks for Smile.
+ */
+@Configuration
+public class WireFormatConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        MappingJackson2SmileHttpMessageConverter smile =
+                new MappingJackson2SmileHttpMessageConverter(HitWireFormat.smileMapper());
+        converters.replaceAll(converter ->
+                converter instanceof MappingJackson2SmileHttpMessageConverter ? smile : converter);
+        if (!converters.contains(smile)) {
+            converters.add(smile);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package ru.practicum.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control: hit ingestion ({@code POST /hit}, {@code /hits}) and stats reads ({@code GET /stats/**},
+ * {@code POST /stats}) each get their own budget of requests in flight. A request over its budget is turned away
+ * at once with {@code Retry-After} (429 for ingestion, 503 for reads) instead of queueing for a database
+ * connection, and because the budgets are separate a burst of hits can never take the capacity reserved for reads.
+ * <p>
+ * An ingest body is read into memory, up to {@code ingest.max-body-size} (413 beyond it), before the permit is
+ * taken, so a slow upload holds a permit only while its hits are written, not while they trickle in. Bodies being
+ * read or held share a budget of {@code ingest.max-buffered} bytes: the declared length is reserved before
+ * reading starts, and a chunked upload reserves as it grows. An upload that does not fit is shed with 429, before
+ * any of it is read when the budget is already spent. Streamed responses hold their permit until the stream
+ * completes.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final int READ_CHUNK = 8192;
+
+    private final boolean enabled;
+    private final Budget ingest;
+    private final Budget read;
+    private final String retryAfter;
+    private final int maxIngestBody;
+    private final int maxBuffered;
+    private final Semaphore bufferedBytes;
+
+    public AdmissionControlFilter(MeterRegistry meterRegistry,
+                                  @Value("${stats.admission.enabled:true}") boolean enabled,
+                                  @Value("${stats.admission.ingest.max-in-flight:6}") int ingestMaxInFlight,
+                                  @Value("${stats.admission.read.max-in-flight:32}") int readMaxInFlight,
+                                  @Value("${stats.admission.retry-after:PT1S}") Duration retryAfter,
+                                  @Value("${stats.admission.ingest.max-body-size:512KB}") DataSize maxIngestBody,
+                                  @Value("${stats.admission.ingest.max-buffered:16MB}") DataSize maxBuffered) {
+        this.enabled = enabled;
+        this.maxIngestBody = (int) Math.min(Integer.MAX_VALUE - 8, maxIngestBody.toBytes());
+        // a body of the maximum size, plus the byte that shows it is over, must always fit on its own
+        this.maxBuffered = (int) Math.max(this.maxIngestBody + 1L, Math.min(Integer.MAX_VALUE, maxBuffered.toBytes()));
+        this.bufferedBytes = new Semaphore(this.maxBuffered);
+        Gauge.builder("stats.admission.ingest.buffered", bufferedBytes, b -> this.maxBuffered - b.availablePermits())
+                .description("Bytes reserved for ingest bodies being read or held")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.ingest = new Budget("ingest", ingestMaxInFlight, HttpStatus.TOO_MANY_REQUESTS, meterRegistry);
+        this.read = new Budget("read", readMaxInFlight, HttpStatus.SERVICE_UNAVAILABLE, meterRegistry);
+        this.retryAfter = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || budgetFor(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Budget budget = budgetFor(request);
+        if (budget != ingest) {
+            admit(budget, request, response, chain);
+            return;
+        }
+        long declared = request.getContentLengthLong();
+        if (declared > maxIngestBody) {
+            rejectTooLarge(response);
+            return;
+        }
+        int reserved = (int) (declared >= 0 ? declared : Math.min(READ_CHUNK, maxIngestBody + 1L));
+        if (!bufferedBytes.tryAcquire(reserved)) {
+            shed(budget, response, "Too many hit uploads being read");
+            return;
+        }
+        try {
+            InputStream in = request.getInputStream();
+            byte[] body = in.readNBytes(reserved);
+            // a chunked upload doubles its reservation whenever the body fills it, up to one byte over the limit
+            while (declared < 0 && body.length == reserved && reserved <= maxIngestBody) {
+                int more = (int) Math.min(reserved, maxIngestBody + 1L - reserved);
+                if (!bufferedBytes.tryAcquire(more)) {
+                    shed(budget, response, "Too many hit uploads being read");
+                    return;
+                }
+                reserved += more;
+                byte[] next = in.readNBytes(more);
+                body = Arrays.copyOf(body, body.length + next.length);
+                System.arraycopy(next, 0, body, body.length - next.length, next.length);
+            }
+            if (body.length > maxIngestBody) {
+                rejectTooLarge(response);
+                return;
+            }
+            // keep only what the body holds until the request is done with it
+            bufferedBytes.release(reserved - body.length);
+            reserved = body.length;
+            admit(budget, new BufferedBodyRequest(request, body), response, chain);
+        } finally {
+            bufferedBytes.release(reserved);
+        }
+    }
+
+    private void admit(Budget budget, HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!budget.permits.tryAcquire()) {
+            shed(budget, response, "Too many " + budget.name + " requests in flight");
+            return;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(budget, released));
+            }
+        } finally {
+            if (!request.isAsyncStarted()) {
+                budget.release(released);
+            }
+        }
+    }
+
+    private void shed(Budget budget, HttpServletResponse response, String message) throws IOException {
+        budget.shed.increment();
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+        response.sendError(budget.status.value(), message);
+    }
+
+    private void rejectTooLarge(HttpServletResponse response) throws IOException {
+        response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                "Hit uploads are limited to " + maxIngestBody + " bytes");
+    }
+
+    private Budget budgetFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (HttpMethod.POST.matches(request.getMethod()) && (path.equals("/hit") || path.equals("/hits"))) {
+            return ingest;
+        }
+        if (HttpMethod.GET.matches(request.getMethod()) && (path.equals("/stats") || path.startsWith("/stats/"))) {
+            return read;
+        }
+        if (HttpMethod.POST.matches(request.getMethod()) && path.equals("/stats")) {
+            return read;
+        }
+        return null;
+    }
+
+    private static final class Budget {
+        private final String name;
+        private final Semaphore permits;
+        private final HttpStatus status;
+        private final Counter shed;
+
+        private Budget(String name, int maxInFlight, HttpStatus status, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.permits = new Semaphore(maxInFlight);
+            this.status = status;
+            this.shed = Counter.builder("stats.admission.shed")
+                    .description("Requests rejected because their budget was exhausted")
+                    .tag("budget", name)
+                    .register(meterRegistry);
+            Gauge.builder("stats.admission.in-flight", permits, p -> maxInFlight - p.availablePermits())
+                    .tag("budget", name)
+                    .register(meterRegistry);
+        }
+
+        private void release(AtomicBoolean released) {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private BufferedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("The body has already been read");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() == null
+                    ? StandardCharsets.UTF_8
+                    : Charset.forName(getCharacterEncoding());
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+
+    private record ReleaseOnCompletion(Budget budget, AtomicBoolean released) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            budget.release(released);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            budget.release(released);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
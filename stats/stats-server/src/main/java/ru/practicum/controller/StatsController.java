@@ -1,16 +1,33 @@
 package ru.practicum.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitWireFormat;
+import ru.practicum.dto.StatsQueryDto;
+import ru.practicum.dto.TimeSeriesPointDto;
 import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.model.TimeSeriesInterval;
 import ru.practicum.service.StatsService;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -18,28 +35,184 @@ import java.util.List;
 public class StatsController {
 
     private final StatsService service;
+    private final ObjectMapper objectMapper;
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    @Value("${stats.ingest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${stats.timeseries.max-buckets:10000}")
+    private int maxBuckets;
+
+    @Value("${stats.query.max-uris:1000}")
+    private int maxUris;
+
     @PostMapping("/hit")
     @ResponseStatus(HttpStatus.CREATED)
     public void saveHit(@RequestBody EndpointHitDto hitDto) {
         service.saveHit(hitDto);
     }
 
+    @PostMapping(value = "/hits", consumes = {MediaType.APPLICATION_JSON_VALUE, HitWireFormat.SMILE_VALUE})
+    @ResponseStatus(HttpStatus.CREATED)
+    public void saveHits(@RequestBody List<EndpointHitDto> hitDtos) {
+        service.saveHits(hitDtos);
+    }
+
+    /**
+     * Parses the whole stream before storing any of it, so a malformed line stores nothing; the body is already
+     * buffered and capped at {@code stats.admission.ingest.max-body-size} by {@code AdmissionControlFilter}.
+     */
+    @PostMapping(value = "/hits", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public void saveHitsStream(InputStream body) {
+        List<EndpointHitDto> hits = new ArrayList<>();
+        try (MappingIterator<EndpointHitDto> lines = objectMapper.readerFor(EndpointHitDto.class).readValues(body)) {
+            while (lines.hasNextValue()) {
+                hits.add(lines.nextValue());
+            }
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Malformed NDJSON hit " + (hits.size() + 1) + "; no hits were stored");
+        }
+        for (int from = 0; from < hits.size(); from += batchSize) {
+            service.saveHits(hits.subList(from, Math.min(from + batchSize, hits.size())));
+        }
+    }
+
     @GetMapping("/stats")
     public List<ViewStatsDto> getStats(
             @RequestParam String start,
             @RequestParam String end,
             @RequestParam(required = false) List<String> uris,
+            @RequestParam(defaultValue = "false") Boolean unique,
+            @RequestParam(defaultValue = "false") Boolean approximate,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "0") Long offset,
+            @RequestParam(defaultValue = "uri") String groupBy) {
+
+        LocalDateTime from = parseDate(start);
+        LocalDateTime to = parseDate(end);
+        checkPage(offset, limit);
+        if ("pattern".equals(groupBy)) {
+            if (uris == null || uris.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "groupBy=pattern requires uris");
+            }
+            return page(service.getPatternStats(from, to, uris, unique), offset, limit);
+        }
+        if (!"uri".equals(groupBy)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "groupBy must be uri or pattern");
+        }
+        if (approximate) {
+            return page(service.getApproximateStats(from, to, uris, unique), offset, limit);
+        }
+        if (limit == null && offset == 0) {
+            return service.getStats(from, to, uris, unique);
+        }
+        return service.getStats(from, to, uris, unique, offset, limit);
+    }
+
+    /**
+     * {@code GET /stats} for a uri list too long for a query string; at most {@code stats.query.max-uris} uris.
+     */
+    @PostMapping("/stats")
+    public List<ViewStatsDto> queryStats(@RequestBody StatsQueryDto query) {
+        if (query.getStart() == null || query.getEnd() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "start and end are required");
+        }
+        if (query.getUris() != null && query.getUris().size() > maxUris) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxUris + " uris per request");
+        }
+        return service.getStats(query.getStart(), query.getEnd(), query.getUris(), query.isUnique());
+    }
+
+    @GetMapping(value = "/stats", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamStats(
+            @RequestParam String start,
+            @RequestParam String end,
+            @RequestParam(required = false) List<String> uris,
+            @RequestParam(defaultValue = "false") Boolean unique,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "0") Long offset) {
+
+        LocalDateTime from = parseDate(start);
+        LocalDateTime to = parseDate(end);
+        checkPage(offset, limit);
+        // the status line is sent with the first row, so reject a bad window before streaming starts
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "start must be before end");
+        }
+        StreamingResponseBody body = out -> {
+            OutputStream buffered = new BufferedOutputStream(out);
+            service.streamStats(from, to, uris, unique, offset, limit, stat -> writeLine(buffered, stat));
+            buffered.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/stats/timeseries")
+    public List<TimeSeriesPointDto> getTimeSeries(
+            @RequestParam String start,
+            @RequestParam String end,
+            @RequestParam(required = false) List<String> uris,
+            @RequestParam(defaultValue = "HOUR") TimeSeriesInterval interval,
             @RequestParam(defaultValue = "false") Boolean unique) {
 
+        LocalDateTime from = parseDate(start);
+        LocalDateTime to = parseDate(end);
+        if (!from.isAfter(to) && interval.buckets(from, to) > maxBuckets) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Window spans more than " + maxBuckets + " buckets; use a wider interval");
+        }
+        return service.getTimeSeries(from, to, uris, interval, unique);
+    }
+
+    @GetMapping("/stats/top")
+    public List<ViewStatsDto> getTopStats(
+            @RequestParam String app,
+            @RequestParam(defaultValue = "PT1H") Duration window,
+            @RequestParam(defaultValue = "50") Integer limit,
+            @RequestParam(defaultValue = "false") Boolean exact) {
+
+        if (window.isNegative() || window.isZero()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "window must be positive");
+        }
+        checkPage(0, limit);
+        return service.getTopStats(app, window, limit, exact);
+    }
+
+    private void writeLine(OutputStream out, ViewStatsDto stat) {
         try {
-            LocalDateTime from = LocalDateTime.parse(start, FORMATTER);
-            LocalDateTime to   = LocalDateTime.parse(end, FORMATTER);
-            return service.getStats(from, to, uris, unique);
+            out.write(objectMapper.writeValueAsBytes(stat));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static LocalDateTime parseDate(String value) {
+        try {
+            return LocalDateTime.parse(value, FORMATTER);
         } catch (DateTimeParseException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Invalid date format. Expected yyyy-MM-dd HH:mm:ss");
         }
     }
-}
\ No newline at end of file
+
+    private static void checkPage(long offset, Integer limit) {
+        if (offset < 0 || (limit != null && limit < 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit and offset must not be negative");
+        }
+    }
+
+    private static List<ViewStatsDto> page(List<ViewStatsDto> stats, long offset, Integer limit) {
+        if (offset >= stats.size()) {
+            return List.of();
+        }
+        int to = limit == null ? stats.size() : (int) Math.min(stats.size(), offset + limit);
+        return stats.subList((int) offset, to);
+    }
+}
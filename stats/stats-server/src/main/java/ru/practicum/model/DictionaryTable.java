@@ -0,0 +1,16 @@
+package ru.practicum.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Tables mapping repeated hit strings to compact integer ids.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum DictionaryTable {
+    APP("stats_app"),
+    URI("stats_uri");
+
+    private final String table;
+}
@@ -17,11 +17,11 @@ public class EndpointHit {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    private String app;
+    private Integer appId;
 
-    private String uri;
+    private Integer uriId;
 
-    private String ip;
+    private byte[] ip;
 
     private LocalDateTime timestamp;
 }
\ No newline at end of file
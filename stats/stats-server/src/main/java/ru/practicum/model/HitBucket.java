@@ -0,0 +1,15 @@
+package ru.practicum.model;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+public record HitBucket(int appId, int uriId, LocalDateTime bucket) {
+
+    /**
+     * Primary key order of the bucketed tables; writers apply keys in this order
+     * so concurrent transactions lock rows in the same sequence.
+     */
+    public static final Comparator<HitBucket> KEY_ORDER = Comparator.comparingInt(HitBucket::uriId)
+            .thenComparing(HitBucket::bucket)
+            .thenComparingInt(HitBucket::appId);
+}
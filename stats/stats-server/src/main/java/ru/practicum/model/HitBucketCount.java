@@ -0,0 +1,13 @@
+package ru.practicum.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Hit count of one app and uri within one time bucket, still in dictionary-encoded form.
+ */
+public record HitBucketCount(Integer appId, Integer uriId, LocalDateTime bucket, Long hits) {
+
+    public HitBucket key() {
+        return new HitBucket(appId, uriId, bucket);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.model;
+
+import java.util.Comparator;
+
+/**
+ * Hit count of one app and uri, still in dictionary-encoded form.
+ */
+public record HitCount(Integer appId, Integer uriId, Long hits) {
+
+    /**
+     * Most hits first; ties are broken by ids so that pages of a result never overlap.
+     */
+    public static final Comparator<HitCount> BY_HITS_DESC = Comparator.comparing(HitCount::hits).reversed()
+            .thenComparing(HitCount::appId)
+            .thenComparing(HitCount::uriId);
+
+    public HitKey key() {
+        return new HitKey(appId, uriId);
+    }
+}
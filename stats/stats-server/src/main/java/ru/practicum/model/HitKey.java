@@ -0,0 +1,4 @@
+package ru.practicum.model;
+
+public record HitKey(int appId, int uriId) {
+}
@@ -0,0 +1,22 @@
+package ru.practicum.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A part of a query window counted either from raw {@code endpoint_hit} rows or from the buckets of one rollup
+ * table. Rollup slices are bucket aligned and never include their end.
+ */
+public record HitSlice(RollupGranularity granularity, LocalDateTime from, LocalDateTime to, boolean toInclusive) {
+
+    public static HitSlice raw(LocalDateTime from, LocalDateTime to, boolean toInclusive) {
+        return new HitSlice(null, from, to, toInclusive);
+    }
+
+    public static HitSlice rollup(RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        return new HitSlice(granularity, from, to, false);
+    }
+
+    public boolean isRaw() {
+        return granularity == null;
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.model;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Fixed-width binary form of visitor ips: 16 bytes, with IPv4 stored IPv4-mapped ({@code ::ffff:a.b.c.d}).
+ * Values that are not address literals are still accepted as hit ips and stored by {@link #encode} as a hash.
+ */
+public final class IpAddress {
+
+    public static final int LENGTH = 16;
+
+    private IpAddress() {
+    }
+
+    /**
+     * {@link #parse} for address literals. Any other value, such as a host name or a header a proxy forwarded
+     * as is, maps to a 64-bit SHA-256 prefix under the discard-only block {@code 100::/64} (RFC 6666), which no
+     * visitor connects from, so equal values still count as one visitor and never as a real address.
+     *
+     * @throws IllegalArgumentException if {@code ip} is {@code null}
+     */
+    public static byte[] encode(String ip) {
+        if (ip == null) {
+            throw new IllegalArgumentException("ip is required");
+        }
+        try {
+            return parse(ip);
+        } catch (IllegalArgumentException e) {
+            return hash(ip);
+        }
+    }
+
+    /**
+     * Parses an IPv4 or IPv6 literal. Host names are rejected, never resolved.
+     *
+     * @throws IllegalArgumentException if {@code ip} is not an address literal
+     */
+    public static byte[] parse(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            throw new IllegalArgumentException("ip is required");
+        }
+        return ip.indexOf(':') < 0 ? parseIpv4(ip) : parseIpv6(ip);
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        byte[] address = new byte[LENGTH];
+        address[10] = (byte) 0xff;
+        address[11] = (byte) 0xff;
+        int octet = 0;
+        int value = -1;
+        for (int i = 0; i <= ip.length(); i++) {
+            char c = i < ip.length() ? ip.charAt(i) : '.';
+            if (c == '.') {
+                if (value < 0 || octet == 4) {
+                    throw invalid(ip);
+                }
+                address[12 + octet++] = (byte) value;
+                value = -1;
+            } else if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    throw invalid(ip);
+                }
+            } else {
+                throw invalid(ip);
+            }
+        }
+        if (octet != 4) {
+            throw invalid(ip);
+        }
+        return address;
+    }
+
+    private static byte[] parseIpv6(String ip) {
+        int zone = ip.indexOf('%');
+        String literal = zone < 0 ? ip : ip.substring(0, zone);
+        // only hex digits, colons and dots, so InetAddress parses a literal instead of doing a lookup
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (c != ':' && c != '.' && Character.digit(c, 16) < 0) {
+                throw invalid(ip);
+            }
+        }
+        InetAddress address;
+        try {
+            address = InetAddress.getByName(literal);
+        } catch (UnknownHostException e) {
+            throw invalid(ip);
+        }
+        if (address instanceof Inet4Address) {
+            return parseIpv4(address.getHostAddress());
+        }
+        return address.getAddress();
+    }
+
+    private static byte[] hash(String ip) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(ip.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] address = new byte[LENGTH];
+        address[0] = 0x01;
+        System.arraycopy(digest, 0, address, 8, 8);
+        return address;
+    }
+
+    private static IllegalArgumentException invalid(String ip) {
+        return new IllegalArgumentException("Invalid ip address: " + ip);
+    }
+}
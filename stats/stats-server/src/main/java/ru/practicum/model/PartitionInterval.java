@@ -0,0 +1,58 @@
+package ru.practicum.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+/**
+ * Range covered by one {@code endpoint_hit} partition. Partitions are named
+ * {@code endpoint_hit_p<start>}, e.g. {@code endpoint_hit_p20250701} or {@code endpoint_hit_p202507}.
+ */
+public enum PartitionInterval {
+    DAY("yyyyMMdd", ChronoUnit.DAYS),
+    MONTH("yyyyMM", ChronoUnit.MONTHS);
+
+    private static final String PREFIX = "endpoint_hit_p";
+
+    private final String pattern;
+    private final DateTimeFormatter formatter;
+    private final ChronoUnit unit;
+
+    PartitionInterval(String pattern, ChronoUnit unit) {
+        this.pattern = pattern;
+        this.formatter = DateTimeFormatter.ofPattern(pattern);
+        this.unit = unit;
+    }
+
+    public LocalDateTime floor(LocalDateTime time) {
+        LocalDateTime day = time.toLocalDate().atStartOfDay();
+        return this == MONTH ? day.withDayOfMonth(1) : day;
+    }
+
+    public LocalDateTime next(LocalDateTime start) {
+        return start.plus(1, unit);
+    }
+
+    public String partitionName(LocalDateTime start) {
+        return PREFIX + formatter.format(start);
+    }
+
+    /**
+     * Start of the range covered by a partition of this interval, or empty for any other table name.
+     */
+    public Optional<LocalDateTime> partitionStart(String partitionName) {
+        if (!partitionName.startsWith(PREFIX) || partitionName.length() != PREFIX.length() + pattern.length()) {
+            return Optional.empty();
+        }
+        String suffix = partitionName.substring(PREFIX.length());
+        try {
+            String day = this == MONTH ? suffix + "01" : suffix;
+            return Optional.of(LocalDate.parse(day, DAY.formatter).atStartOfDay());
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+}
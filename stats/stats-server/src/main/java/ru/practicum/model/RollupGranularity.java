@@ -0,0 +1,35 @@
+package ru.practicum.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+@Getter
+@RequiredArgsConstructor
+public enum RollupGranularity {
+    MINUTE("endpoint_hit_minute", ChronoUnit.MINUTES),
+    HOUR("endpoint_hit_hour", ChronoUnit.HOURS);
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final String table;
+    private final ChronoUnit unit;
+
+    public LocalDateTime floor(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime floor = floor(time);
+        return floor.equals(time) ? floor : floor.plus(1, unit);
+    }
+
+    /**
+     * Number of whole buckets between the epoch and {@code time}.
+     */
+    public long index(LocalDateTime time) {
+        return unit.between(EPOCH, floor(time));
+    }
+}
@@ -0,0 +1,48 @@
+package ru.practicum.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Bucket width of {@code /stats/timeseries}. {@code rollup} is the coarsest rollup table whose buckets
+ * nest inside one of these, so whole rollup buckets can be summed into it.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum TimeSeriesInterval {
+    MINUTE(ChronoUnit.MINUTES, RollupGranularity.MINUTE),
+    HOUR(ChronoUnit.HOURS, RollupGranularity.HOUR),
+    DAY(ChronoUnit.DAYS, RollupGranularity.HOUR);
+
+    private final ChronoUnit unit;
+    private final RollupGranularity rollup;
+
+    public LocalDateTime floor(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * Start of the bucket holding {@code epochSecond}, in epoch seconds.
+     */
+    public long floor(long epochSecond) {
+        long seconds = unit.getDuration().toSeconds();
+        return Math.floorDiv(epochSecond, seconds) * seconds;
+    }
+
+    /**
+     * Number of buckets touched by {@code [start, end]}.
+     */
+    public long buckets(LocalDateTime start, LocalDateTime end) {
+        return unit.between(floor(start), floor(end)) + 1;
+    }
+
+    /**
+     * Field name accepted by {@code DATE_TRUNC} in PostgreSQL and H2.
+     */
+    public String sqlField() {
+        return name().toLowerCase();
+    }
+}
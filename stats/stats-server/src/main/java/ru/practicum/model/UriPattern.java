@@ -0,0 +1,83 @@
+package ru.practicum.model;
+
+import java.util.regex.Pattern;
+
+/**
+ * A uri filter that matches a family of uris: {@code *} matches any text within one path segment, a trailing
+ * {@code /*} also matches deeper paths, and a route template placeholder such as {@code {id}} matches one
+ * non-empty segment. {@code /events/*} and {@code /events/{id}} both match {@code /events/42}.
+ * <p>
+ * Matching uris are looked up by {@link #prefix()}, the literal text before the first wildcard, so the
+ * dictionary index narrows the candidates before {@link #matches} checks them.
+ */
+public final class UriPattern {
+
+    private final String pattern;
+    private final String prefix;
+    private final Pattern regex;
+
+    private UriPattern(String pattern, String prefix, Pattern regex) {
+        this.pattern = pattern;
+        this.prefix = prefix;
+        this.regex = regex;
+    }
+
+    public static boolean isPattern(String uri) {
+        return uri.indexOf('*') >= 0 || uri.indexOf('{') >= 0;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a placeholder is not closed
+     */
+    public static UriPattern parse(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        int literalEnd = -1;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '{') {
+                if (literalEnd < 0) {
+                    literalEnd = i;
+                }
+                if (c == '*') {
+                    boolean trailing = i == pattern.length() - 1 && i > 0 && pattern.charAt(i - 1) == '/';
+                    regex.append(trailing ? ".*" : "[^/]*");
+                    i++;
+                } else {
+                    int close = pattern.indexOf('}', i);
+                    if (close < 0) {
+                        throw new IllegalArgumentException("Unclosed placeholder in uri pattern: " + pattern);
+                    }
+                    regex.append("[^/]+");
+                    i = close + 1;
+                }
+            } else {
+                int next = i;
+                while (next < pattern.length() && pattern.charAt(next) != '*' && pattern.charAt(next) != '{') {
+                    next++;
+                }
+                regex.append(Pattern.quote(pattern.substring(i, next)));
+                i = next;
+            }
+        }
+        String prefix = literalEnd < 0 ? pattern : pattern.substring(0, literalEnd);
+        return new UriPattern(pattern, prefix, Pattern.compile(regex.toString()));
+    }
+
+    public String pattern() {
+        return pattern;
+    }
+
+    public String prefix() {
+        return prefix;
+    }
+
+    public boolean matches(String uri) {
+        return regex.matcher(uri).matches();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.model.DictionaryTable;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+@Repository
+public class DictionaryRepository {
+
+    private static final String POSTGRES_INSERT_IF_ABSENT = "INSERT INTO %s (name) VALUES (:name) "
+            + "ON CONFLICT (name) DO NOTHING";
+    private static final String MERGE_INSERT_IF_ABSENT = "MERGE INTO %s t "
+            + "USING (VALUES (CAST(:name AS VARCHAR(255)))) AS s (name) ON t.name = s.name "
+            + "WHEN NOT MATCHED THEN INSERT (name) VALUES (s.name)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String insertIfAbsent;
+
+    public DictionaryRepository(NamedParameterJdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertIfAbsent = SqlDialect.detect(dataSource) == SqlDialect.POSTGRES
+                ? POSTGRES_INSERT_IF_ABSENT
+                : MERGE_INSERT_IF_ABSENT;
+    }
+
+    /**
+     * Adds the missing names and returns the ids of all of them. Commits on its own, so an id
+     * handed out here stays valid even if the caller's transaction rolls back.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Map<String, Integer> insertIfAbsent(DictionaryTable table, Collection<String> names) {
+        SqlParameterSource[] batch = new TreeSet<>(names).stream()
+                .map(name -> new MapSqlParameterSource("name", name))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(insertIfAbsent.formatted(table.getTable()), batch);
+        return findIds(table, names);
+    }
+
+    public Map<String, Integer> findIds(DictionaryTable table, Collection<String> names) {
+        Map<String, Integer> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM " + table.getTable() + " WHERE name = ANY(:names)",
+                new MapSqlParameterSource("names", names.toArray(String[]::new)),
+                rs -> {
+                    ids.put(rs.getString("name"), rs.getInt("id"));
+                });
+        return ids;
+    }
+
+    public Map<Integer, String> findNames(DictionaryTable table, Collection<Integer> ids) {
+        Map<Integer, String> names = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM " + table.getTable() + " WHERE id = ANY(:ids)",
+                new MapSqlParameterSource("ids", ids.toArray(Integer[]::new)),
+                rs -> {
+                    names.put(rs.getInt("id"), rs.getString("name"));
+                });
+        return names;
+    }
+
+    /**
+     * Returns the entries whose name starts with {@code prefix}; served by the prefix index on the name.
+     */
+    public Map<String, Integer> findByPrefix(DictionaryTable table, String prefix) {
+        String escaped = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        Map<String, Integer> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM " + table.getTable() + " WHERE name LIKE :prefix ESCAPE '\\'",
+                new MapSqlParameterSource("prefix", escaped + "%"),
+                rs -> {
+                    ids.put(rs.getString("name"), rs.getInt("id"));
+                });
+        return ids;
+    }
+}
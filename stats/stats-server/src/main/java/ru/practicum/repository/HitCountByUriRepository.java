@@ -0,0 +1,23 @@
+package ru.practicum.repository;
+
+import ru.practicum.model.HitCount;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Hit counts restricted to a set of uri ids, which may be as large as everything a uri pattern matches.
+ */
+public interface HitCountByUriRepository {
+
+    List<HitCount> findAllStatsWithUris(LocalDateTime start, LocalDateTime end, List<Integer> uriIds);
+
+    List<HitCount> findAllUniqueStatsWithUris(LocalDateTime start, LocalDateTime end, List<Integer> uriIds);
+
+    List<HitCount> findAllStatsWithUrisBefore(LocalDateTime start, LocalDateTime endExclusive, List<Integer> uriIds);
+
+    /**
+     * Distinct visitors per app across all of {@code uriIds}; the uri id of every row is 0.
+     */
+    List<HitCount> findUniqueVisitorsPerApp(LocalDateTime start, LocalDateTime end, List<Integer> uriIds);
+}
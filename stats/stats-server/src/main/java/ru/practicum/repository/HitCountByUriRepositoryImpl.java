@@ -0,0 +1,60 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.model.HitCount;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+class HitCountByUriRepositoryImpl implements HitCountByUriRepository {
+
+    private static final RowMapper<HitCount> HIT_COUNT =
+            (rs, rowNum) -> new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<HitCount> findAllStatsWithUris(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        return countPerUri("COUNT(*)", "timestamp BETWEEN :start AND :end", start, end, uriIds);
+    }
+
+    @Override
+    public List<HitCount> findAllUniqueStatsWithUris(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        return countPerUri("COUNT(DISTINCT ip)", "timestamp BETWEEN :start AND :end", start, end, uriIds);
+    }
+
+    @Override
+    public List<HitCount> findAllStatsWithUrisBefore(LocalDateTime start, LocalDateTime endExclusive,
+                                                     List<Integer> uriIds) {
+        return countPerUri("COUNT(*)", "timestamp >= :start AND timestamp < :end", start, endExclusive, uriIds);
+    }
+
+    @Override
+    public List<HitCount> findUniqueVisitorsPerApp(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        MapSqlParameterSource params = window(start, end);
+        String sql = "SELECT app_id, 0 AS uri_id, COUNT(DISTINCT ip) AS hits FROM endpoint_hit "
+                + "WHERE timestamp BETWEEN :start AND :end" + UriIdFilter.of(uriIds, params)
+                + " GROUP BY app_id";
+        return jdbcTemplate.query(sql, params, HIT_COUNT);
+    }
+
+    private List<HitCount> countPerUri(String count, String window, LocalDateTime start, LocalDateTime end,
+                                       List<Integer> uriIds) {
+        MapSqlParameterSource params = window(start, end);
+        String sql = "SELECT app_id, uri_id, " + count + " AS hits FROM endpoint_hit WHERE " + window
+                + UriIdFilter.of(uriIds, params)
+                + " GROUP BY app_id, uri_id ORDER BY hits DESC";
+        return jdbcTemplate.query(sql, params, HIT_COUNT);
+    }
+
+    private static MapSqlParameterSource window(LocalDateTime start, LocalDateTime end) {
+        return new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+    }
+}
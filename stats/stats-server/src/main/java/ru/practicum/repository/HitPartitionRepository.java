@@ -0,0 +1,82 @@
+package ru.practicum.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.model.PartitionInterval;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * DDL for the PostgreSQL range partitions of {@code endpoint_hit}.
+ */
+@Repository
+public class HitPartitionRepository {
+
+    private static final DateTimeFormatter BOUND_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String DEFAULT_PARTITION = "endpoint_hit_default";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean supported;
+
+    public HitPartitionRepository(JdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.supported = SqlDialect.detect(dataSource) == SqlDialect.POSTGRES;
+    }
+
+    public boolean isSupported() {
+        return supported;
+    }
+
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid "
+                + "WHERE i.inhparent = 'endpoint_hit'::regclass", String.class);
+    }
+
+    /**
+     * Starts of the intervals that currently have rows parked in the default partition.
+     */
+    public List<LocalDateTime> findDefaultPartitionRanges(PartitionInterval interval) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT date_trunc('" + interval.name().toLowerCase()
+                        + "', timestamp) FROM " + DEFAULT_PARTITION, Timestamp.class).stream()
+                .map(Timestamp::toLocalDateTime)
+                .toList();
+    }
+
+    /**
+     * Creates the partition for {@code [from, to)}. Rows of that range already sitting in the
+     * default partition are moved into the new partition before it is attached. Writes to
+     * {@code endpoint_hit} wait until the transaction ends, so no row of the range can reach the
+     * default partition between the move and the attach; reads go on.
+     */
+    @Transactional
+    public void createPartition(String name, LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.execute("LOCK TABLE endpoint_hit IN SHARE ROW EXCLUSIVE MODE");
+        String bounds = "FROM ('" + BOUND_FORMATTER.format(from) + "') TO ('" + BOUND_FORMATTER.format(to) + "')";
+        Boolean parked = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION
+                + " WHERE timestamp >= ? AND timestamp < ?)", Boolean.class, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        if (!Boolean.TRUE.equals(parked)) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF endpoint_hit FOR VALUES " + bounds);
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE endpoint_hit INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                + " WHERE timestamp >= ? AND timestamp < ? RETURNING id, app_id, uri_id, ip, timestamp) "
+                + "INSERT INTO " + name + " (id, app_id, uri_id, ip, timestamp) SELECT id, app_id, uri_id, ip, timestamp FROM moved",
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+        jdbcTemplate.execute("ALTER TABLE endpoint_hit ATTACH PARTITION " + name + " FOR VALUES " + bounds);
+    }
+
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + name);
+    }
+
+    public int deleteFromDefaultPartitionBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE timestamp < ?", Timestamp.valueOf(cutoff));
+    }
+}
@@ -0,0 +1,105 @@
+package ru.practicum.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitBucket;
+import ru.practicum.model.HitBucketCount;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.RollupGranularity;
+import ru.practicum.model.TimeSeriesInterval;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-bucket hit counters kept next to the raw {@code endpoint_hit} rows.
+ * Buckets are addressed by their start time and cover {@code [bucket, bucket + unit)}.
+ */
+@Repository
+public class HitRollupRepository {
+
+    private static final String POSTGRES_UPSERT = "INSERT INTO %1$s (app_id, uri_id, bucket, hits) "
+            + "VALUES (:appId, :uriId, :bucket, :hits) "
+            + "ON CONFLICT (uri_id, bucket, app_id) DO UPDATE SET hits = %1$s.hits + EXCLUDED.hits";
+    private static final String MERGE_UPSERT = "MERGE INTO %1$s t "
+            + "USING (VALUES (CAST(:appId AS INTEGER), CAST(:uriId AS INTEGER), "
+            + "CAST(:bucket AS TIMESTAMP), CAST(:hits AS BIGINT))) AS s (app_id, uri_id, bucket, hits) "
+            + "ON t.uri_id = s.uri_id AND t.bucket = s.bucket AND t.app_id = s.app_id "
+            + "WHEN MATCHED THEN UPDATE SET hits = t.hits + s.hits "
+            + "WHEN NOT MATCHED THEN INSERT (app_id, uri_id, bucket, hits) "
+            + "VALUES (s.app_id, s.uri_id, s.bucket, s.hits)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String upsertTemplate;
+
+    public HitRollupRepository(NamedParameterJdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsertTemplate = SqlDialect.detect(dataSource) == SqlDialect.POSTGRES ? POSTGRES_UPSERT : MERGE_UPSERT;
+    }
+
+    public void increment(List<EndpointHit> hits) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Map<HitBucket, Long> counts = new TreeMap<>(HitBucket.KEY_ORDER);
+            for (EndpointHit hit : hits) {
+                counts.merge(new HitBucket(hit.getAppId(), hit.getUriId(), granularity.floor(hit.getTimestamp())),
+                        1L, Long::sum);
+            }
+            SqlParameterSource[] batch = counts.entrySet().stream()
+                    .map(e -> new MapSqlParameterSource()
+                            .addValue("appId", e.getKey().appId())
+                            .addValue("uriId", e.getKey().uriId())
+                            .addValue("bucket", Timestamp.valueOf(e.getKey().bucket()))
+                            .addValue("hits", e.getValue()))
+                    .toArray(SqlParameterSource[]::new);
+            jdbcTemplate.batchUpdate(upsertTemplate.formatted(granularity.getTable()), batch);
+        }
+    }
+
+    public List<HitCount> sumHits(RollupGranularity granularity, LocalDateTime from, LocalDateTime to,
+                                  List<Integer> uriIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        StringBuilder sql = new StringBuilder("SELECT app_id, uri_id, SUM(hits) AS hits FROM ")
+                .append(granularity.getTable())
+                .append(" WHERE bucket >= :from AND bucket < :to");
+        sql.append(UriIdFilter.of(uriIds, params));
+        sql.append(" GROUP BY app_id, uri_id");
+        return jdbcTemplate.query(sql.toString(), params,
+                (rs, rowNum) -> new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+    }
+
+    /**
+     * Sums the {@code granularity} buckets in {@code [from, to)} per enclosing {@code interval} bucket.
+     */
+    public List<HitBucketCount> sumHitsByBucket(RollupGranularity granularity, TimeSeriesInterval interval,
+                                                LocalDateTime from, LocalDateTime to, List<Integer> uriIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        String bucket = "DATE_TRUNC('" + interval.sqlField() + "', bucket)";
+        StringBuilder sql = new StringBuilder("SELECT app_id, uri_id, ")
+                .append(bucket).append(" AS series_bucket, SUM(hits) AS hits FROM ")
+                .append(granularity.getTable())
+                .append(" WHERE bucket >= :from AND bucket < :to");
+        sql.append(UriIdFilter.of(uriIds, params));
+        sql.append(" GROUP BY app_id, uri_id, ").append(bucket);
+        return jdbcTemplate.query(sql.toString(), params,
+                (rs, rowNum) -> new HitBucketCount(rs.getInt("app_id"), rs.getInt("uri_id"),
+                        rs.getTimestamp("series_bucket").toLocalDateTime(), rs.getLong("hits")));
+    }
+
+    public void deleteBefore(LocalDateTime cutoff) {
+        MapSqlParameterSource params = new MapSqlParameterSource("cutoff", Timestamp.valueOf(cutoff));
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            jdbcTemplate.update("DELETE FROM " + granularity.getTable() + " WHERE bucket < :cutoff", params);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ru.practicum.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.HitKey;
+import ru.practicum.model.HitBucket;
+import ru.practicum.sketch.HyperLogLog;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Hourly HyperLogLog sketches of visitor ips per app and uri.
+ */
+@Repository
+public class HitSketchRepository {
+
+    private static final String POSTGRES_INSERT_IF_ABSENT = "INSERT INTO endpoint_hit_hll_hour "
+            + "(app_id, uri_id, bucket, sketch) VALUES (:appId, :uriId, :bucket, :sketch) "
+            + "ON CONFLICT (uri_id, bucket, app_id) DO NOTHING";
+    private static final String MERGE_INSERT_IF_ABSENT = "MERGE INTO endpoint_hit_hll_hour t "
+            + "USING (VALUES (CAST(:appId AS INTEGER), CAST(:uriId AS INTEGER), CAST(:bucket AS TIMESTAMP))) "
+            + "AS s (app_id, uri_id, bucket) "
+            + "ON t.uri_id = s.uri_id AND t.bucket = s.bucket AND t.app_id = s.app_id "
+            + "WHEN NOT MATCHED THEN INSERT (app_id, uri_id, bucket, sketch) "
+            + "VALUES (s.app_id, s.uri_id, s.bucket, :sketch)";
+    private static final String SELECT_FOR_UPDATE = "SELECT sketch FROM endpoint_hit_hll_hour "
+            + "WHERE uri_id = :uriId AND bucket = :bucket AND app_id = :appId FOR UPDATE";
+    private static final String UPDATE = "UPDATE endpoint_hit_hll_hour SET sketch = :sketch "
+            + "WHERE uri_id = :uriId AND bucket = :bucket AND app_id = :appId";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String insertIfAbsent;
+
+    public HitSketchRepository(NamedParameterJdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertIfAbsent = SqlDialect.detect(dataSource) == SqlDialect.POSTGRES
+                ? POSTGRES_INSERT_IF_ABSENT
+                : MERGE_INSERT_IF_ABSENT;
+    }
+
+    /**
+     * Folds {@code sketch} into the stored sketch of {@code bucket}. Must run inside a transaction.
+     */
+    public void merge(HitBucket bucket, HyperLogLog sketch) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("appId", bucket.appId())
+                .addValue("uriId", bucket.uriId())
+                .addValue("bucket", Timestamp.valueOf(bucket.bucket()))
+                .addValue("sketch", sketch.toBytes());
+        if (jdbcTemplate.update(insertIfAbsent, params) > 0) {
+            return;
+        }
+        byte[] stored = jdbcTemplate.queryForObject(SELECT_FOR_UPDATE, params, byte[].class);
+        sketch.merge(HyperLogLog.fromBytes(stored));
+        params.addValue("sketch", sketch.toBytes());
+        jdbcTemplate.update(UPDATE, params);
+    }
+
+    public void scanSketches(LocalDateTime from, LocalDateTime to, List<Integer> uriIds,
+                             BiConsumer<HitKey, HyperLogLog> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        String sql = "SELECT app_id, uri_id, sketch FROM endpoint_hit_hll_hour WHERE bucket >= :from AND bucket < :to"
+                + UriIdFilter.of(uriIds, params);
+        jdbcTemplate.query(sql, params, rs -> {
+            consumer.accept(new HitKey(rs.getInt("app_id"), rs.getInt("uri_id")),
+                    HyperLogLog.fromBytes(rs.getBytes("sketch")));
+        });
+    }
+
+    public void scanVisitors(LocalDateTime from, LocalDateTime to, boolean toInclusive, List<Integer> uriIds,
+                             BiConsumer<HitKey, byte[]> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        String sql = "SELECT DISTINCT app_id, uri_id, ip FROM endpoint_hit WHERE timestamp >= :from AND timestamp "
+                + (toInclusive ? "<=" : "<") + " :to"
+                + UriIdFilter.of(uriIds, params);
+        jdbcTemplate.query(sql, params, rs -> {
+            consumer.accept(new HitKey(rs.getInt("app_id"), rs.getInt("uri_id")), rs.getBytes("ip"));
+        });
+    }
+
+    public void deleteBefore(LocalDateTime cutoff) {
+        jdbcTemplate.update("DELETE FROM endpoint_hit_hll_hour WHERE bucket < :cutoff",
+                new MapSqlParameterSource("cutoff", Timestamp.valueOf(cutoff)));
+    }
+}
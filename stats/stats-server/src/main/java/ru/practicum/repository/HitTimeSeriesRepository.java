@@ -0,0 +1,44 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.HitBucketCount;
+import ru.practicum.model.TimeSeriesInterval;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Raw {@code endpoint_hit} counts grouped per time bucket in a single pass.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitTimeSeriesRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Counts hits in {@code [from, to]}, or {@code [from, to)} unless {@code inclusiveEnd}, per app, uri
+     * and {@code interval} bucket. Unique counts are distinct ips within each bucket.
+     */
+    public List<HitBucketCount> countByBucket(TimeSeriesInterval interval, LocalDateTime from, LocalDateTime to,
+                                              boolean inclusiveEnd, List<Integer> uriIds, boolean unique) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        String bucket = "DATE_TRUNC('" + interval.sqlField() + "', timestamp)";
+        StringBuilder sql = new StringBuilder("SELECT app_id, uri_id, ")
+                .append(bucket).append(" AS series_bucket, ")
+                .append(unique ? "COUNT(DISTINCT ip)" : "COUNT(*)")
+                .append(" AS hits FROM endpoint_hit WHERE timestamp >= :from AND timestamp ")
+                .append(inclusiveEnd ? "<=" : "<").append(" :to");
+        sql.append(UriIdFilter.of(uriIds, params));
+        sql.append(" GROUP BY app_id, uri_id, ").append(bucket);
+        return jdbcTemplate.query(sql.toString(), params,
+                (rs, rowNum) -> new HitBucketCount(rs.getInt("app_id"), rs.getInt("uri_id"),
+                        rs.getTimestamp("series_bucket").toLocalDateTime(), rs.getLong("hits")));
+    }
+}
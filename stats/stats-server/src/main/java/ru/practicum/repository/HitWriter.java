@@ -0,0 +1,13 @@
+package ru.practicum.repository;
+
+import ru.practicum.model.EndpointHit;
+
+import java.util.List;
+
+/**
+ * Append-only writer for {@code endpoint_hit} rows that bypasses JPA entity persistence.
+ * Ids are assigned by the database and never read back.
+ */
+public interface HitWriter {
+    void write(List<EndpointHit> hits);
+}
@@ -0,0 +1,52 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.EndpointHit;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+@ConditionalOnProperty(name = "stats.ingest.writer", havingValue = "multi-row", matchIfMissing = true)
+public class MultiRowInsertHitWriter implements HitWriter {
+
+    private static final String INSERT_PREFIX = "INSERT INTO endpoint_hit (app_id, uri_id, ip, timestamp) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public MultiRowInsertHitWriter(JdbcTemplate jdbcTemplate,
+                                   @Value("${stats.ingest.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void write(List<EndpointHit> hits) {
+        for (int from = 0; from < hits.size(); from += batchSize) {
+            insertChunk(hits.subList(from, Math.min(from + batchSize, hits.size())));
+        }
+    }
+
+    private void insertChunk(List<EndpointHit> chunk) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + chunk.size() * (ROW.length() + 2))
+                .append(INSERT_PREFIX);
+        Object[] args = new Object[chunk.size() * 4];
+        int i = 0;
+        for (EndpointHit hit : chunk) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW);
+            args[i++] = hit.getAppId();
+            args[i++] = hit.getUriId();
+            args[i++] = hit.getIp();
+            args[i++] = Timestamp.valueOf(hit.getTimestamp());
+        }
+        jdbcTemplate.update(sql.toString(), args);
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.repository;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.EndpointHit;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Streams hits through the PostgreSQL COPY protocol, the cheapest way to bulk-load rows.
+ * All hits of a call go through one COPY, written {@code batch-size} rows at a time, so a failure stores none of
+ * them even outside a transaction. Only usable against PostgreSQL; enable with {@code stats.ingest.writer=copy}.
+ */
+@Repository
+@ConditionalOnProperty(name = "stats.ingest.writer", havingValue = "copy")
+public class PostgresCopyHitWriter implements HitWriter {
+
+    private static final String COPY_SQL = "COPY endpoint_hit (app_id, uri_id, ip, timestamp) FROM STDIN WITH (FORMAT csv)";
+    private static final HexFormat HEX = HexFormat.of();
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
+
+    private final DataSource dataSource;
+    private final int batchSize;
+
+    public PostgresCopyHitWriter(DataSource dataSource,
+                                 @Value("${stats.ingest.batch-size:500}") int batchSize) {
+        this.dataSource = dataSource;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void write(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        CopyIn copyIn = null;
+        try {
+            copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+            for (int from = 0; from < hits.size(); from += batchSize) {
+                byte[] csv = toCsv(hits.subList(from, Math.min(from + batchSize, hits.size())))
+                        .getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(csv, 0, csv.length);
+            }
+            copyIn.endCopy();
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("COPY into endpoint_hit failed", e);
+        } finally {
+            if (copyIn != null && copyIn.isActive()) {
+                cancel(copyIn);
+            }
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private static void cancel(CopyIn copyIn) {
+        try {
+            copyIn.cancelCopy();
+        } catch (SQLException e) {
+            // the write already failed; a connection left mid-COPY is broken and dropped by the pool
+        }
+    }
+
+    private static String toCsv(List<EndpointHit> chunk) {
+        StringBuilder csv = new StringBuilder(chunk.size() * 64);
+        for (EndpointHit hit : chunk) {
+            csv.append(hit.getAppId()).append(',');
+            csv.append(hit.getUriId()).append(',');
+            appendHex(csv, hit.getIp()).append(',');
+            csv.append(FORMATTER.format(hit.getTimestamp())).append('\n');
+        }
+        return csv.toString();
+    }
+
+    // bytea hex input format
+    private static StringBuilder appendHex(StringBuilder csv, byte[] value) {
+        return HEX.formatHex(csv.append("\\x"), value);
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.repository;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+public enum SqlDialect {
+    POSTGRES,
+    STANDARD;
+
+    public static SqlDialect detect(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equals(product) ? POSTGRES : STANDARD;
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Cannot detect stats database type", e);
+        }
+    }
+}
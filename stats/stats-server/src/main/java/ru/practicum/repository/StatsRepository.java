@@ -1,50 +1,47 @@
 package ru.practicum.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
-import ru.practicum.dto.ViewStatsDto;
 import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitCount;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
+public interface StatsRepository extends JpaRepository<EndpointHit, Long>, HitCountByUriRepository {
 
-public interface StatsRepository extends JpaRepository<EndpointHit, Long> {
-
-    @Query("SELECT new ru.practicum.dto.ViewStatsDto(e.app, e.uri, COUNT(e.id)) " +
+    @Query("SELECT new ru.practicum.model.HitCount(e.appId, e.uriId, COUNT(e.id)) " +
             "FROM EndpointHit e " +
             "WHERE e.timestamp BETWEEN :start AND :end " +
-            "AND e.uri IN :uris " +
-            "GROUP BY e.app, e.uri " +
+            "GROUP BY e.appId, e.uriId " +
             "ORDER BY COUNT(e.id) DESC")
-    List<ViewStatsDto> findAllStatsWithUris(@Param("start") LocalDateTime start,
-                                            @Param("end") LocalDateTime end,
-                                            @Param("uris") List<String> uris);
+    List<HitCount> findAllStatsWithoutUris(@Param("start") LocalDateTime start,
+                                           @Param("end") LocalDateTime end);
 
-    @Query("SELECT new ru.practicum.dto.ViewStatsDto(e.app, e.uri, COUNT(e.id)) " +
+    @Query("SELECT new ru.practicum.model.HitCount(e.appId, e.uriId, COUNT(DISTINCT e.ip)) " +
             "FROM EndpointHit e " +
             "WHERE e.timestamp BETWEEN :start AND :end " +
-            "GROUP BY e.app, e.uri " +
-            "ORDER BY COUNT(e.id) DESC")
-    List<ViewStatsDto> findAllStatsWithoutUris(@Param("start") LocalDateTime start,
-                                               @Param("end") LocalDateTime end);
+            "GROUP BY e.appId, e.uriId " +
+            "ORDER BY COUNT(DISTINCT e.ip) DESC")
+    List<HitCount> findAllUniqueStatsWithoutUris(@Param("start") LocalDateTime start,
+                                                 @Param("end") LocalDateTime end);
 
-    @Query("SELECT new ru.practicum.dto.ViewStatsDto(e.app, e.uri, COUNT(DISTINCT e.ip)) " +
+    @Query("SELECT new ru.practicum.model.HitCount(e.appId, e.uriId, COUNT(e.id)) " +
             "FROM EndpointHit e " +
-            "WHERE e.timestamp BETWEEN :start AND :end " +
-            "AND e.uri IN :uris " +
-            "GROUP BY e.app, e.uri " +
-            "ORDER BY COUNT(DISTINCT e.ip) DESC")
-    List<ViewStatsDto> findAllUniqueStatsWithUris(@Param("start") LocalDateTime start,
-                                                  @Param("end") LocalDateTime end,
-                                                  @Param("uris") List<String> uris);
+            "WHERE e.timestamp >= :start AND e.timestamp < :end " +
+            "GROUP BY e.appId, e.uriId")
+    List<HitCount> findAllStatsWithoutUrisBefore(@Param("start") LocalDateTime start,
+                                                 @Param("end") LocalDateTime endExclusive);
 
-    @Query("SELECT new ru.practicum.dto.ViewStatsDto(e.app, e.uri, COUNT(DISTINCT e.ip)) " +
+    @Query("SELECT new ru.practicum.model.HitCount(e.appId, e.uriId, COUNT(e.id)) " +
             "FROM EndpointHit e " +
-            "WHERE e.timestamp BETWEEN :start AND :end " +
-            "GROUP BY e.app, e.uri " +
-            "ORDER BY COUNT(DISTINCT e.ip) DESC")
-    List<ViewStatsDto> findAllUniqueStatsWithoutUris(@Param("start") LocalDateTime start,
-                                                     @Param("end") LocalDateTime end);
-}
\ No newline at end of file
+            "WHERE e.appId = :appId AND e.timestamp >= :start AND e.timestamp <= :end " +
+            "GROUP BY e.appId, e.uriId " +
+            "ORDER BY COUNT(e.id) DESC, e.uriId")
+    List<HitCount> findTopUris(@Param("appId") Integer appId,
+                               @Param("start") LocalDateTime start,
+                               @Param("end") LocalDateTime end,
+                               Pageable pageable);
+}
@@ -0,0 +1,90 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.HitSlice;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+/**
+ * Reads raw hit counts row by row from a JDBC cursor, in {@link HitCount#BY_HITS_DESC} order.
+ */
+@Repository
+public class StatsStreamRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public StatsStreamRepository(DataSource dataSource,
+                                 @Value("${stats.query.fetch-size:1000}") int fetchSize) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(fetchSize);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+    }
+
+    /**
+     * PostgreSQL only honours the fetch size inside a transaction; outside one the whole result is buffered.
+     */
+    public void stream(LocalDateTime start, LocalDateTime end, List<Integer> uriIds, boolean unique,
+                       long offset, Integer limit, Consumer<HitCount> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+        StringBuilder sql = new StringBuilder("SELECT app_id, uri_id, ")
+                .append(unique ? "COUNT(DISTINCT ip)" : "COUNT(*)")
+                .append(" AS hits FROM endpoint_hit WHERE timestamp BETWEEN :start AND :end");
+        sql.append(UriIdFilter.of(uriIds, params));
+        sql.append(" GROUP BY app_id, uri_id ORDER BY hits DESC, app_id, uri_id");
+        query(sql, params, offset, limit, consumer);
+    }
+
+    /**
+     * Streams the hit totals over {@code slices} like {@link #stream}; the slices are summed in the same query, so
+     * only the requested page leaves the database.
+     */
+    public void streamSlices(List<HitSlice> slices, List<Integer> uriIds, long offset, Integer limit,
+                             Consumer<HitCount> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String uriFilter = UriIdFilter.of(uriIds, params);
+        StringJoiner union = new StringJoiner(" UNION ALL ",
+                "SELECT app_id, uri_id, SUM(hits) AS hits FROM (", ") slices");
+        for (int i = 0; i < slices.size(); i++) {
+            HitSlice slice = slices.get(i);
+            params.addValue("from" + i, Timestamp.valueOf(slice.from()))
+                    .addValue("to" + i, Timestamp.valueOf(slice.to()));
+            String column = slice.isRaw() ? "timestamp" : "bucket";
+            union.add((slice.isRaw()
+                    ? "SELECT app_id, uri_id, COUNT(*) AS hits FROM endpoint_hit"
+                    : "SELECT app_id, uri_id, SUM(hits) AS hits FROM " + slice.granularity().getTable())
+                    + " WHERE " + column + " >= :from" + i
+                    + " AND " + column + (slice.toInclusive() ? " <= :to" : " < :to") + i
+                    + uriFilter + " GROUP BY app_id, uri_id");
+        }
+        StringBuilder sql = new StringBuilder(union.toString())
+                .append(" GROUP BY app_id, uri_id ORDER BY SUM(hits) DESC, app_id, uri_id");
+        query(sql, params, offset, limit, consumer);
+    }
+
+    private void query(StringBuilder sql, MapSqlParameterSource params, long offset, Integer limit,
+                       Consumer<HitCount> consumer) {
+        if (limit != null) {
+            sql.append(" LIMIT :limit");
+            params.addValue("limit", limit);
+        }
+        if (offset > 0) {
+            sql.append(" OFFSET :offset");
+            params.addValue("offset", offset);
+        }
+        jdbcTemplate.query(sql.toString(), params, rs -> {
+            consumer.accept(new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+        });
+    }
+}
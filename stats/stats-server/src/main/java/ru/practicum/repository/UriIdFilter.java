@@ -0,0 +1,26 @@
+package ru.practicum.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.util.Collection;
+
+/**
+ * Restricts a query to a set of uri ids through one array parameter. A uri pattern can match any number of
+ * uris, and expanding them into {@code IN (?, ?, ...)} would run into the driver's bind parameter limit.
+ */
+final class UriIdFilter {
+
+    private UriIdFilter() {
+    }
+
+    /**
+     * Returns the {@code AND} clause for {@code uriIds} and binds them, or an empty string when there is no filter.
+     */
+    static String of(Collection<Integer> uriIds, MapSqlParameterSource params) {
+        if (uriIds == null || uriIds.isEmpty()) {
+            return "";
+        }
+        params.addValue("uriIds", uriIds.toArray(Integer[]::new));
+        return " AND uri_id = ANY(:uriIds)";
+    }
+}
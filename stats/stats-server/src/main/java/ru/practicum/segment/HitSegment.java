@@ -0,0 +1,177 @@
+package ru.practicum.segment;
+
+import ru.practicum.model.IpAddress;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * One append-only, memory-mapped file of fixed-width hit records:
+ * {@code app id (int), uri id (int), epoch second (long), ip (16 bytes)}.
+ * <p>
+ * The file is pre-sized to {@code capacity} records and zero-filled, so the record count is recovered on
+ * open as the first record with app id 0 (dictionary ids start at 1). The app id is written last, after the
+ * rest of the record, so a record cut short by a crash still reads as 0 and is overwritten by the next append.
+ * Every {@value #BLOCK_RECORDS} records form a block whose min and max timestamp are kept in memory; scans skip
+ * blocks outside the window.
+ * <p>
+ * A single writer appends while any number of readers scan: records are published by the volatile count.
+ */
+public class HitSegment implements AutoCloseable {
+
+    public static final int RECORD_SIZE = 8 + 8 + IpAddress.LENGTH;
+    public static final int BLOCK_RECORDS = 4096;
+
+    private static final int APP_OFFSET = 0;
+    private static final int URI_OFFSET = 4;
+    private static final int TIMESTAMP_OFFSET = 8;
+    private static final int IP_OFFSET = 16;
+    private static final VarHandle APP_ID = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final long[] blockMin;
+    private final long[] blockMax;
+    private volatile int count;
+
+    private HitSegment(Path path, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        int blocks = (capacity + BLOCK_RECORDS - 1) / BLOCK_RECORDS;
+        this.blockMin = new long[blocks];
+        this.blockMax = new long[blocks];
+        Arrays.fill(blockMin, Long.MAX_VALUE);
+        Arrays.fill(blockMax, Long.MIN_VALUE);
+    }
+
+    /**
+     * Opens {@code path}, creating it with room for {@code capacity} records when missing, and rebuilds the
+     * time index from the records already in it.
+     */
+    public static HitSegment open(Path path, int capacity) throws IOException {
+        if ((long) capacity * RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment capacity too large: " + capacity);
+        }
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), (long) capacity * RECORD_SIZE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        HitSegment segment = new HitSegment(path, channel, buffer, (int) (size / RECORD_SIZE));
+        segment.recover();
+        return segment;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isFull() {
+        return count == capacity;
+    }
+
+    /**
+     * Appends one record; the caller must be the only writer and check {@link #isFull()} first.
+     */
+    public void append(int appId, int uriId, long epochSecond, byte[] ip) {
+        int index = count;
+        int offset = index * RECORD_SIZE;
+        buffer.putInt(offset + URI_OFFSET, uriId);
+        buffer.putLong(offset + TIMESTAMP_OFFSET, epochSecond);
+        buffer.put(offset + IP_OFFSET, ip, 0, IpAddress.LENGTH);
+        // the commit marker: a release store is not reordered before the writes above
+        APP_ID.setRelease(buffer, offset + APP_OFFSET, appId);
+        index(index, epochSecond);
+        count = index + 1;
+    }
+
+    public int blocks() {
+        return (count + BLOCK_RECORDS - 1) / BLOCK_RECORDS;
+    }
+
+    /**
+     * Whether any record of {@code block} may fall in {@code [from, to]} (epoch seconds).
+     */
+    public boolean overlaps(int block, long from, long to) {
+        return blockMin[block] <= to && blockMax[block] >= from;
+    }
+
+    public boolean overlaps(long from, long to) {
+        for (int block = 0; block < blocks(); block++) {
+            if (overlaps(block, from, to)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hands every record of blocks {@code [fromBlock, toBlock)} with a timestamp in {@code [from, to]} to
+     * {@code visitor}. The ip buffer passed to the visitor is reused between records.
+     */
+    public void scan(int fromBlock, int toBlock, long from, long to, RecordVisitor visitor) {
+        int visible = count;
+        ByteBuffer view = buffer.duplicate();
+        byte[] ip = new byte[IpAddress.LENGTH];
+        for (int block = fromBlock; block < toBlock; block++) {
+            if (!overlaps(block, from, to)) {
+                continue;
+            }
+            int end = Math.min(visible, (block + 1) * BLOCK_RECORDS);
+            for (int index = block * BLOCK_RECORDS; index < end; index++) {
+                int offset = index * RECORD_SIZE;
+                long timestamp = view.getLong(offset + TIMESTAMP_OFFSET);
+                if (timestamp < from || timestamp > to) {
+                    continue;
+                }
+                view.get(offset + IP_OFFSET, ip);
+                visitor.accept(view.getInt(offset + APP_OFFSET), view.getInt(offset + URI_OFFSET), timestamp, ip);
+            }
+        }
+    }
+
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void accept(int appId, int uriId, long epochSecond, byte[] ip);
+    }
+
+    private void recover() {
+        int index = 0;
+        while (index < capacity && buffer.getInt(index * RECORD_SIZE + APP_OFFSET) != 0) {
+            index(index, buffer.getLong(index * RECORD_SIZE + TIMESTAMP_OFFSET));
+            index++;
+        }
+        count = index;
+    }
+
+    private void index(int index, long epochSecond) {
+        int block = index / BLOCK_RECORDS;
+        blockMin[block] = Math.min(blockMin[block], epochSecond);
+        blockMax[block] = Math.max(blockMax[block], epochSecond);
+    }
+}
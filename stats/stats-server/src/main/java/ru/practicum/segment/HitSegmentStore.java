@@ -0,0 +1,147 @@
+package ru.practicum.segment;
+
+import ru.practicum.model.EndpointHit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Directory of {@link HitSegment} files named {@code hits-<sequence>.seg}. Hits are appended to the newest
+ * segment until it is full, then a new one is started; full segments are flushed to disk and never written again.
+ * <p>
+ * Queries split the segments overlapping the window into runs of blocks and scan them in parallel, each run
+ * folding into its own accumulator before the accumulators are merged.
+ * <p>
+ * Writers are serialized with a lock rather than a monitor: appends can fault pages in and {@link #flush()}
+ * waits on disk, which would pin a virtual thread inside {@code synchronized}.
+ */
+public class HitSegmentStore implements AutoCloseable {
+
+    private static final String PREFIX = "hits-";
+    private static final String SUFFIX = ".seg";
+    private static final int BLOCKS_PER_TASK = 64;
+
+    private final Path directory;
+    private final int segmentCapacity;
+    private final List<HitSegment> segments = new CopyOnWriteArrayList<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private HitSegment active;
+    private long sequence;
+
+    public HitSegmentStore(Path directory, int segmentCapacity) {
+        this.directory = directory;
+        this.segmentCapacity = segmentCapacity;
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing
+                        .filter(path -> path.getFileName().toString().startsWith(PREFIX)
+                                && path.getFileName().toString().endsWith(SUFFIX))
+                        .sorted()
+                        .toList();
+            }
+            for (Path file : files) {
+                segments.add(HitSegment.open(file, segmentCapacity));
+                sequence = sequenceOf(file) + 1;
+            }
+            active = segments.isEmpty() || segments.get(segments.size() - 1).isFull()
+                    ? roll()
+                    : segments.get(segments.size() - 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open hit segments in " + directory, e);
+        }
+    }
+
+    public void append(List<EndpointHit> hits) {
+        writeLock.lock();
+        try {
+            for (EndpointHit hit : hits) {
+                if (active.isFull()) {
+                    active.force();
+                    active = roll();
+                }
+                active.append(hit.getAppId(), hit.getUriId(), hit.getTimestamp().toEpochSecond(ZoneOffset.UTC),
+                        hit.getIp());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Folds every record with a timestamp in {@code [from, to]} (epoch seconds) into accumulators created by
+     * {@code supplier}, scanning independent block runs in parallel, and merges them with {@code combiner}.
+     */
+    public <A extends HitSegment.RecordVisitor> A scan(long from, long to, Supplier<A> supplier,
+                                                       BinaryOperator<A> combiner) {
+        List<Task> tasks = new ArrayList<>();
+        for (HitSegment segment : segments) {
+            int blocks = segment.blocks();
+            if (!segment.overlaps(from, to)) {
+                continue;
+            }
+            for (int block = 0; block < blocks; block += BLOCKS_PER_TASK) {
+                tasks.add(new Task(segment, block, Math.min(blocks, block + BLOCKS_PER_TASK)));
+            }
+        }
+        return tasks.parallelStream()
+                .map(task -> {
+                    A accumulator = supplier.get();
+                    task.segment().scan(task.fromBlock(), task.toBlock(), from, to, accumulator);
+                    return accumulator;
+                })
+                .reduce(combiner)
+                .orElseGet(supplier);
+    }
+
+    public void flush() {
+        writeLock.lock();
+        try {
+            active.force();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            for (HitSegment segment : segments) {
+                segment.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private HitSegment roll() {
+        Path file = directory.resolve(String.format("%s%012d%s", PREFIX, sequence++, SUFFIX));
+        try {
+            HitSegment segment = HitSegment.open(file, segmentCapacity);
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create hit segment " + file, e);
+        }
+    }
+
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private record Task(HitSegment segment, int fromBlock, int toBlock) {
+    }
+}
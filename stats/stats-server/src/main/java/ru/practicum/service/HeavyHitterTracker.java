@@ -0,0 +1,124 @@
+package ru.practicum.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitCount;
+import ru.practicum.sketch.SpaceSaving;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ru.practicum.model.RollupGranularity.MINUTE;
+
+/**
+ * In-memory most-viewed uris per app over a sliding window of one-minute slots, each slot
+ * summarised by a {@link SpaceSaving} sketch. Queries merge at most {@code slots * capacity}
+ * counters, independent of hit volume. Only hits ingested since startup are counted.
+ */
+@Component
+public class HeavyHitterTracker {
+
+    private final boolean enabled;
+    private final int slots;
+    private final int capacity;
+    private final Map<Integer, AppWindow> windows = new ConcurrentHashMap<>();
+
+    public HeavyHitterTracker(@Value("${stats.top.enabled:true}") boolean enabled,
+                              @Value("${stats.top.window:PT1H}") Duration window,
+                              @Value("${stats.top.capacity:1000}") int capacity) {
+        this.enabled = enabled;
+        this.slots = (int) Math.max(1, window.toMinutes());
+        this.capacity = capacity;
+    }
+
+    /**
+     * Whole minutes covering {@code window}, rounded up; windows past {@code Integer.MAX_VALUE} minutes, which
+     * already reach beyond any retained hit, are clamped to it.
+     */
+    public static int minutes(Duration window) {
+        if (window.toMinutes() >= Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.max(1, window.plusSeconds(59).toMinutes());
+    }
+
+    /**
+     * Whether {@link #top} can answer a window of {@code minutes} with {@code limit} rows.
+     */
+    public boolean covers(int minutes, int limit) {
+        return enabled && minutes <= slots && limit <= capacity;
+    }
+
+    public void record(List<EndpointHit> hits) {
+        if (!enabled) {
+            return;
+        }
+        Map<Integer, List<EndpointHit>> byApp = new HashMap<>();
+        for (EndpointHit hit : hits) {
+            byApp.computeIfAbsent(hit.getAppId(), id -> new ArrayList<>()).add(hit);
+        }
+        byApp.forEach((appId, appHits) -> windows.computeIfAbsent(appId, id -> new AppWindow()).record(appHits));
+    }
+
+    /**
+     * Estimated top {@code limit} uris of {@code appId} in the {@code minutes} one-minute slots ending with
+     * the one containing {@code now}, most hits first. Counts may overestimate by {@code total / capacity}.
+     */
+    public List<HitCount> top(int appId, int minutes, int limit, LocalDateTime now) {
+        AppWindow window = windows.get(appId);
+        if (window == null) {
+            return List.of();
+        }
+        Map<Integer, Long> counts = window.sum(MINUTE.index(now), minutes);
+        PriorityQueue<HitCount> top = new PriorityQueue<>(Comparator.comparing(HitCount::hits)
+                .thenComparing(HitCount::uriId, Comparator.reverseOrder()));
+        counts.forEach((uriId, hits) -> {
+            top.add(new HitCount(appId, uriId, hits));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+        return top.stream()
+                .sorted(HitCount.BY_HITS_DESC)
+                .toList();
+    }
+
+    private final class AppWindow {
+        private final long[] slotMinutes = new long[slots];
+        private final SpaceSaving[] sketches = new SpaceSaving[slots];
+
+        private synchronized void record(List<EndpointHit> hits) {
+            for (EndpointHit hit : hits) {
+                long minute = MINUTE.index(hit.getTimestamp());
+                int slot = (int) Math.floorMod(minute, (long) slots);
+                if (sketches[slot] == null || slotMinutes[slot] < minute) {
+                    sketches[slot] = new SpaceSaving(capacity);
+                    slotMinutes[slot] = minute;
+                } else if (slotMinutes[slot] > minute) {
+                    // older than the window kept in memory
+                    continue;
+                }
+                sketches[slot].offer(hit.getUriId(), 1);
+            }
+        }
+
+        private synchronized Map<Integer, Long> sum(long nowMinute, int minutes) {
+            Map<Integer, Long> counts = new HashMap<>();
+            for (int slot = 0; slot < slots; slot++) {
+                long minute = slotMinutes[slot];
+                if (sketches[slot] != null && minute <= nowMinute && minute > nowMinute - minutes) {
+                    sketches[slot].forEach((uriId, count) -> counts.merge(uriId, count, Long::sum));
+                }
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package ru.practicum.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.TimeSeriesPointDto;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.model.DictionaryTable;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitBucketCount;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.IpAddress;
+import ru.practicum.model.UriPattern;
+import ru.practicum.repository.DictionaryRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static ru.practicum.model.DictionaryTable.APP;
+import static ru.practicum.model.DictionaryTable.URI;
+
+/**
+ * Maps app and uri strings to their dictionary ids and back. Entries never change once
+ * assigned, so they are cached for the lifetime of the process.
+ */
+@Service
+public class HitDictionary {
+
+    private final DictionaryRepository repository;
+    private final Map<DictionaryTable, Entries> caches = new EnumMap<>(DictionaryTable.class);
+
+    public HitDictionary(DictionaryRepository repository) {
+        this.repository = repository;
+        for (DictionaryTable table : DictionaryTable.values()) {
+            caches.put(table, new Entries());
+        }
+    }
+
+    /**
+     * Returns the ids of {@code names}, assigning new ids to unseen ones.
+     */
+    public Map<String, Integer> resolve(DictionaryTable table, Collection<String> names) {
+        return lookup(table, names, true);
+    }
+
+    /**
+     * Returns the ids of the known {@code names}; unknown names are left out.
+     */
+    public Map<String, Integer> find(DictionaryTable table, Collection<String> names) {
+        return lookup(table, names, false);
+    }
+
+    /**
+     * Returns the ids of the known uris named by {@code uris}, where any entry may be a {@link UriPattern}.
+     */
+    public Set<Integer> findUriIds(Collection<String> uris) {
+        Set<Integer> ids = new HashSet<>();
+        matchUris(uris).values().forEach(ids::addAll);
+        return ids;
+    }
+
+    /**
+     * Returns the ids of the known uris matching each of {@code patterns}; a plain uri matches only itself.
+     *
+     * @throws ResponseStatusException with 400 when a pattern is malformed
+     */
+    public Map<String, Set<Integer>> matchUris(Collection<String> patterns) {
+        Map<String, Set<Integer>> matches = new HashMap<>();
+        List<String> exact = new ArrayList<>();
+        for (String pattern : new HashSet<>(patterns)) {
+            if (!UriPattern.isPattern(pattern)) {
+                exact.add(pattern);
+                continue;
+            }
+            UriPattern uriPattern = parsePattern(pattern);
+            Entries entries = caches.get(URI);
+            Set<Integer> ids = new HashSet<>();
+            repository.findByPrefix(URI, uriPattern.prefix()).forEach((name, id) -> {
+                entries.put(name, id);
+                if (uriPattern.matches(name)) {
+                    ids.add(id);
+                }
+            });
+            matches.put(pattern, ids);
+        }
+        if (!exact.isEmpty()) {
+            Map<String, Integer> ids = find(URI, exact);
+            for (String uri : exact) {
+                Integer id = ids.get(uri);
+                matches.put(uri, id == null ? Set.of() : Set.of(id));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Rows named after uri patterns from per-pattern, per-app totals, most hits first.
+     */
+    public List<ViewStatsDto> decodePatterns(Map<String, Map<Integer, Long>> totals) {
+        Map<Integer, String> apps = names(APP, totals.values().stream()
+                .flatMap(byApp -> byApp.keySet().stream())
+                .toList());
+        List<ViewStatsDto> stats = new ArrayList<>();
+        totals.forEach((pattern, byApp) -> byApp.forEach((appId, hits) ->
+                stats.add(new ViewStatsDto(apps.get(appId), pattern, hits))));
+        stats.sort(Comparator.comparing(ViewStatsDto::getHits).reversed()
+                .thenComparing(ViewStatsDto::getApp)
+                .thenComparing(ViewStatsDto::getUri));
+        return stats;
+    }
+
+    /**
+     * Converts incoming hits to entities, assigning ids to unseen apps and uris.
+     *
+     * @throws ResponseStatusException with 400 when an ip is missing
+     */
+    public List<EndpointHit> encode(List<EndpointHitDto> hitDtos) {
+        List<byte[]> ips = hitDtos.stream()
+                .map(hitDto -> parseIp(hitDto.getIp()))
+                .toList();
+        Map<String, Integer> appIds = resolve(APP,
+                hitDtos.stream().map(EndpointHitDto::getApp).collect(Collectors.toSet()));
+        Map<String, Integer> uriIds = resolve(URI,
+                hitDtos.stream().map(EndpointHitDto::getUri).collect(Collectors.toSet()));
+        return IntStream.range(0, hitDtos.size())
+                .mapToObj(i -> EndpointHit.builder()
+                        .appId(appIds.get(hitDtos.get(i).getApp()))
+                        .uriId(uriIds.get(hitDtos.get(i).getUri()))
+                        .ip(ips.get(i))
+                        .timestamp(hitDtos.get(i).getTimestamp())
+                        .build())
+                .toList();
+    }
+
+    public List<ViewStatsDto> decode(List<HitCount> counts) {
+        Map<Integer, String> apps = names(APP, counts.stream().map(HitCount::appId).toList());
+        Map<Integer, String> uris = names(URI, counts.stream().map(HitCount::uriId).toList());
+        return counts.stream()
+                .map(count -> new ViewStatsDto(apps.get(count.appId()), uris.get(count.uriId()), count.hits()))
+                .toList();
+    }
+
+    public ViewStatsDto decode(HitCount count) {
+        return decode(List.of(count)).get(0);
+    }
+
+    /**
+     * Decodes bucketed counts, ordered by app, uri and bucket.
+     */
+    public List<TimeSeriesPointDto> decodeBuckets(List<HitBucketCount> counts) {
+        Map<Integer, String> apps = names(APP, counts.stream().map(HitBucketCount::appId).toList());
+        Map<Integer, String> uris = names(URI, counts.stream().map(HitBucketCount::uriId).toList());
+        return counts.stream()
+                .map(count -> new TimeSeriesPointDto(apps.get(count.appId()), uris.get(count.uriId()),
+                        count.bucket(), count.hits()))
+                .sorted(Comparator.comparing(TimeSeriesPointDto::getApp)
+                        .thenComparing(TimeSeriesPointDto::getUri)
+                        .thenComparing(TimeSeriesPointDto::getBucket))
+                .toList();
+    }
+
+    private Map<String, Integer> lookup(DictionaryTable table, Collection<String> names, boolean create) {
+        Entries entries = caches.get(table);
+        Map<String, Integer> ids = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String name : names) {
+            Integer id = entries.ids.get(name);
+            if (id != null) {
+                ids.put(name, id);
+            } else {
+                missing.add(name);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, Integer> loaded = create
+                    ? repository.insertIfAbsent(table, missing)
+                    : repository.findIds(table, missing);
+            loaded.forEach(entries::put);
+            ids.putAll(loaded);
+        }
+        return ids;
+    }
+
+    private Map<Integer, String> names(DictionaryTable table, Collection<Integer> ids) {
+        Entries entries = caches.get(table);
+        Map<Integer, String> names = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : new HashSet<>(ids)) {
+            String name = entries.names.get(id);
+            if (name != null) {
+                names.put(id, name);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Integer, String> loaded = repository.findNames(table, missing);
+            loaded.forEach((id, name) -> entries.put(name, id));
+            names.putAll(loaded);
+        }
+        return names;
+    }
+
+    private static byte[] parseIp(String ip) {
+        try {
+            return IpAddress.encode(ip);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static UriPattern parsePattern(String pattern) {
+        try {
+            return UriPattern.parse(pattern);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static final class Entries {
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+        private void put(String name, Integer id) {
+            ids.put(name, id);
+            names.put(id, name);
+        }
+    }
+}
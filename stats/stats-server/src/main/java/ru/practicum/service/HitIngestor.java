@@ -0,0 +1,47 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.repository.HitWriter;
+
+import java.util.List;
+
+/**
+ * Single entry point for persisting hits: raw rows and every derived structure
+ * are written in one transaction so they never disagree.
+ */
+@Component
+@RequiredArgsConstructor
+public class HitIngestor {
+
+    private final HitWriter hitWriter;
+    private final HitRollupService rollupService;
+    private final UniqueVisitorSketchService sketchService;
+    private final HeavyHitterTracker heavyHitters;
+    private final RecentHitCounters recentCounters;
+    private final StatsResultCache resultCache;
+    private final StatsMetrics metrics;
+
+    @Transactional
+    public void ingest(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        metrics.recordInsert(hits.size(), () -> hitWriter.write(hits));
+        rollupService.record(hits);
+        sketchService.record(hits);
+        // in-memory state cannot roll back, so it only sees committed hits
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                heavyHitters.record(hits);
+                recentCounters.record(hits);
+                resultCache.invalidate(hits);
+            }
+        });
+    }
+}
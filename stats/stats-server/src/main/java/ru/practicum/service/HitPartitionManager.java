@@ -0,0 +1,114 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.practicum.model.PartitionInterval;
+import ru.practicum.repository.HitPartitionRepository;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.repository.HitSketchRepository;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Keeps {@code endpoint_hit} partitioned by time: pre-creates upcoming partitions, gives stray rows
+ * from the default partition a partition of their own and, when a retention period is set, drops
+ * whole partitions (plus the matching rollup and sketch buckets) instead of deleting rows.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "stats.partitioning", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class HitPartitionManager {
+
+    private final HitPartitionRepository partitionRepository;
+    private final HitRollupRepository rollupRepository;
+    private final HitSketchRepository sketchRepository;
+    private final PartitionInterval interval;
+    private final int premake;
+    private final int retentionDays;
+
+    public HitPartitionManager(HitPartitionRepository partitionRepository,
+                               HitRollupRepository rollupRepository,
+                               HitSketchRepository sketchRepository,
+                               @Value("${stats.partitioning.interval:DAY}") PartitionInterval interval,
+                               @Value("${stats.partitioning.premake:7}") int premake,
+                               @Value("${stats.partitioning.retention-days:0}") int retentionDays) {
+        this.partitionRepository = partitionRepository;
+        this.rollupRepository = rollupRepository;
+        this.sketchRepository = sketchRepository;
+        this.interval = interval;
+        this.premake = premake;
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${stats.partitioning.maintenance-interval:PT1H}")
+    public void maintain() {
+        if (partitionRepository.isSupported()) {
+            maintain(LocalDateTime.now());
+        }
+    }
+
+    void maintain(LocalDateTime now) {
+        LocalDateTime cutoff = retentionDays > 0 ? interval.floor(now.minusDays(retentionDays)) : null;
+        Set<String> existing = new HashSet<>(partitionRepository.findPartitionNames());
+
+        LocalDateTime start = interval.floor(now);
+        for (int i = 0; i <= premake; i++) {
+            ensurePartition(existing, start);
+            start = interval.next(start);
+        }
+        for (LocalDateTime parked : partitionRepository.findDefaultPartitionRanges(interval)) {
+            if (cutoff == null || !parked.isBefore(cutoff)) {
+                ensurePartition(existing, parked);
+            }
+        }
+
+        if (cutoff != null) {
+            applyRetention(existing, cutoff);
+        }
+    }
+
+    /**
+     * A partition that cannot be created is logged and retried on the next run, so it holds up
+     * neither the other partitions nor retention.
+     */
+    private void ensurePartition(Set<String> existing, LocalDateTime start) {
+        String name = interval.partitionName(start);
+        if (existing.contains(name)) {
+            return;
+        }
+        try {
+            partitionRepository.createPartition(name, start, interval.next(start));
+            existing.add(name);
+            log.info("Created partition {}", name);
+        } catch (DataAccessException e) {
+            log.warn("Could not create partition {}: {}", name, e.getMessage());
+        }
+    }
+
+    private void applyRetention(Set<String> existing, LocalDateTime cutoff) {
+        for (String name : existing) {
+            Optional<LocalDateTime> start = interval.partitionStart(name);
+            if (start.isPresent() && !interval.next(start.get()).isAfter(cutoff)) {
+                try {
+                    partitionRepository.dropPartition(name);
+                    log.info("Dropped partition {} older than {}", name, cutoff);
+                } catch (DataAccessException e) {
+                    log.warn("Could not drop partition {}: {}", name, e.getMessage());
+                }
+            }
+        }
+        int stray = partitionRepository.deleteFromDefaultPartitionBefore(cutoff);
+        if (stray > 0) {
+            log.info("Deleted {} hits older than {} from the default partition", stray, cutoff);
+        }
+        rollupRepository.deleteBefore(cutoff);
+        sketchRepository.deleteBefore(cutoff);
+    }
+}
@@ -0,0 +1,207 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitBucket;
+import ru.practicum.model.HitBucketCount;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.HitKey;
+import ru.practicum.model.HitSlice;
+import ru.practicum.model.TimeSeriesInterval;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.repository.HitTimeSeriesRepository;
+import ru.practicum.repository.StatsRepository;
+import ru.practicum.repository.StatsStreamRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static ru.practicum.model.RollupGranularity.HOUR;
+import static ru.practicum.model.RollupGranularity.MINUTE;
+
+/**
+ * Answers non-unique hit counts from pre-aggregated minute counters.
+ * A window {@code [start, end]} is split into its whole minutes and raw {@code endpoint_hit} rows
+ * for the sub-minute edges, so the sum equals the raw count. The whole minutes come from
+ * {@link RecentHitCounters} when it holds all of them, otherwise from the minute/hour rollup tables.
+ */
+@Service
+@RequiredArgsConstructor
+public class HitRollupService {
+
+    private final StatsRepository statsRepository;
+    private final HitRollupRepository rollupRepository;
+    private final RecentHitCounters recentCounters;
+    private final HitTimeSeriesRepository timeSeriesRepository;
+    private final StatsStreamRepository streamRepository;
+
+    @Value("${stats.rollup.enabled:true}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled || recentCounters.isEnabled();
+    }
+
+    /**
+     * Whether the minute and hour rollup tables are kept up to date, which {@link #streamHits} relies on.
+     */
+    public boolean isTablesEnabled() {
+        return enabled;
+    }
+
+    public void record(List<EndpointHit> hits) {
+        if (enabled) {
+            rollupRepository.increment(hits);
+        }
+    }
+
+    public List<HitCount> getHits(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        boolean filtered = uriIds != null && !uriIds.isEmpty();
+        LocalDateTime minuteStart = MINUTE.ceil(start);
+        LocalDateTime minuteEnd = MINUTE.floor(end);
+        if (!minuteStart.isBefore(minuteEnd)) {
+            return filtered
+                    ? statsRepository.findAllStatsWithUris(start, end, uriIds)
+                    : statsRepository.findAllStatsWithoutUris(start, end);
+        }
+
+        Map<HitKey, Long> totals = new HashMap<>();
+        if (start.isBefore(minuteStart)) {
+            add(totals, filtered
+                    ? statsRepository.findAllStatsWithUrisBefore(start, minuteStart, uriIds)
+                    : statsRepository.findAllStatsWithoutUrisBefore(start, minuteStart));
+        }
+        if (recentCounters.covers(minuteStart, minuteEnd)) {
+            add(totals, recentCounters.sumHits(minuteStart, minuteEnd, uriIds));
+        } else if (enabled) {
+            addRollups(totals, minuteStart, minuteEnd, uriIds);
+        } else {
+            add(totals, filtered
+                    ? statsRepository.findAllStatsWithUrisBefore(minuteStart, minuteEnd, uriIds)
+                    : statsRepository.findAllStatsWithoutUrisBefore(minuteStart, minuteEnd));
+        }
+        add(totals, filtered
+                ? statsRepository.findAllStatsWithUris(minuteEnd, end, uriIds)
+                : statsRepository.findAllStatsWithoutUris(minuteEnd, end));
+
+        return totals.entrySet().stream()
+                .map(e -> new HitCount(e.getKey().appId(), e.getKey().uriId(), e.getValue()))
+                .sorted(HitCount.BY_HITS_DESC)
+                .toList();
+    }
+
+    /**
+     * Streams the counts of {@link #getHits} in {@link HitCount#BY_HITS_DESC} order from the raw edges and the
+     * rollup tables, summed in one query that returns only the requested page.
+     */
+    public void streamHits(LocalDateTime start, LocalDateTime end, List<Integer> uriIds, long offset, Integer limit,
+                           Consumer<HitCount> consumer) {
+        streamRepository.streamSlices(slices(start, end), uriIds, offset, limit, consumer);
+    }
+
+    /**
+     * Non-unique hit counts of {@code [start, end]} per {@code interval} bucket, split like {@link #getHits}:
+     * raw rows for the sub-minute edges and rollup buckets, summed per interval, for the whole minutes.
+     */
+    public List<HitBucketCount> getHitSeries(LocalDateTime start, LocalDateTime end, List<Integer> uriIds,
+                                             TimeSeriesInterval interval) {
+        LocalDateTime minuteStart = MINUTE.ceil(start);
+        LocalDateTime minuteEnd = MINUTE.floor(end);
+        if (!enabled || !minuteStart.isBefore(minuteEnd)) {
+            return timeSeriesRepository.countByBucket(interval, start, end, true, uriIds, false);
+        }
+
+        Map<HitBucket, Long> totals = new HashMap<>();
+        if (start.isBefore(minuteStart)) {
+            addBuckets(totals, timeSeriesRepository.countByBucket(interval, start, minuteStart, false, uriIds, false));
+        }
+        LocalDateTime hourStart = HOUR.ceil(minuteStart);
+        LocalDateTime hourEnd = HOUR.floor(minuteEnd);
+        if (interval.getRollup() == HOUR && hourStart.isBefore(hourEnd)) {
+            addMinuteBuckets(totals, interval, minuteStart, hourStart, uriIds);
+            addBuckets(totals, rollupRepository.sumHitsByBucket(HOUR, interval, hourStart, hourEnd, uriIds));
+            addMinuteBuckets(totals, interval, hourEnd, minuteEnd, uriIds);
+        } else {
+            addMinuteBuckets(totals, interval, minuteStart, minuteEnd, uriIds);
+        }
+        addBuckets(totals, timeSeriesRepository.countByBucket(interval, minuteEnd, end, true, uriIds, false));
+
+        return totals.entrySet().stream()
+                .map(e -> new HitBucketCount(e.getKey().appId(), e.getKey().uriId(), e.getKey().bucket(), e.getValue()))
+                .toList();
+    }
+
+    private static List<HitSlice> slices(LocalDateTime start, LocalDateTime end) {
+        LocalDateTime minuteStart = MINUTE.ceil(start);
+        LocalDateTime minuteEnd = MINUTE.floor(end);
+        if (!minuteStart.isBefore(minuteEnd)) {
+            return List.of(HitSlice.raw(start, end, true));
+        }
+        List<HitSlice> slices = new ArrayList<>();
+        if (start.isBefore(minuteStart)) {
+            slices.add(HitSlice.raw(start, minuteStart, false));
+        }
+        LocalDateTime hourStart = HOUR.ceil(minuteStart);
+        LocalDateTime hourEnd = HOUR.floor(minuteEnd);
+        if (hourStart.isBefore(hourEnd)) {
+            addMinuteSlice(slices, minuteStart, hourStart);
+            slices.add(HitSlice.rollup(HOUR, hourStart, hourEnd));
+            addMinuteSlice(slices, hourEnd, minuteEnd);
+        } else {
+            slices.add(HitSlice.rollup(MINUTE, minuteStart, minuteEnd));
+        }
+        slices.add(HitSlice.raw(minuteEnd, end, true));
+        return slices;
+    }
+
+    private static void addMinuteSlice(List<HitSlice> slices, LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(to)) {
+            slices.add(HitSlice.rollup(MINUTE, from, to));
+        }
+    }
+
+    private void addRollups(Map<HitKey, Long> totals, LocalDateTime minuteStart, LocalDateTime minuteEnd,
+                            List<Integer> uriIds) {
+        LocalDateTime hourStart = HOUR.ceil(minuteStart);
+        LocalDateTime hourEnd = HOUR.floor(minuteEnd);
+        if (hourStart.isBefore(hourEnd)) {
+            addMinutes(totals, minuteStart, hourStart, uriIds);
+            add(totals, rollupRepository.sumHits(HOUR, hourStart, hourEnd, uriIds));
+            addMinutes(totals, hourEnd, minuteEnd, uriIds);
+        } else {
+            addMinutes(totals, minuteStart, minuteEnd, uriIds);
+        }
+    }
+
+    private void addMinutes(Map<HitKey, Long> totals, LocalDateTime from, LocalDateTime to,
+                            List<Integer> uriIds) {
+        if (from.isBefore(to)) {
+            add(totals, rollupRepository.sumHits(MINUTE, from, to, uriIds));
+        }
+    }
+
+    private void addMinuteBuckets(Map<HitBucket, Long> totals, TimeSeriesInterval interval, LocalDateTime from,
+                                  LocalDateTime to, List<Integer> uriIds) {
+        if (from.isBefore(to)) {
+            addBuckets(totals, rollupRepository.sumHitsByBucket(MINUTE, interval, from, to, uriIds));
+        }
+    }
+
+    private static void addBuckets(Map<HitBucket, Long> totals, List<HitBucketCount> counts) {
+        for (HitBucketCount count : counts) {
+            totals.merge(count.key(), count.hits(), Long::sum);
+        }
+    }
+
+    private static void add(Map<HitKey, Long> totals, List<HitCount> counts) {
+        for (HitCount count : counts) {
+            totals.merge(count.key(), count.hits(), Long::sum);
+        }
+    }
+}
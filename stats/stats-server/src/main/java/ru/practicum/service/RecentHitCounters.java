@@ -0,0 +1,143 @@
+package ru.practicum.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.HitKey;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static ru.practicum.model.RollupGranularity.MINUTE;
+
+/**
+ * Per-minute hit counters for the most recent {@code stats.recent.retention}, kept in a ring of
+ * minute slots. A minute is covered when it started after this tier did and its slot still holds it;
+ * covered minutes hold exactly the committed hits of that minute, so they can replace the rollup tables.
+ */
+@Component
+public class RecentHitCounters {
+
+    private final boolean enabled;
+    private final int slots;
+    private final long coveredFrom;
+    private final long[] slotMinutes;
+    private final List<Map<HitKey, Long>> counts;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public RecentHitCounters(@Value("${stats.recent.enabled:true}") boolean enabled,
+                             @Value("${stats.recent.retention:PT24H}") Duration retention) {
+        this(enabled, retention, LocalDateTime.now());
+    }
+
+    RecentHitCounters(boolean enabled, Duration retention, LocalDateTime startedAt) {
+        this.enabled = enabled;
+        this.slots = (int) Math.max(1, retention.toMinutes());
+        // the minute in progress may already have hits committed before startup
+        this.coveredFrom = MINUTE.index(startedAt) + 1;
+        this.slotMinutes = new long[slots];
+        this.counts = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++) {
+            slotMinutes[i] = Long.MIN_VALUE;
+            counts.add(new HashMap<>());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void record(List<EndpointHit> hits) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (EndpointHit hit : hits) {
+                long minute = MINUTE.index(hit.getTimestamp());
+                if (minute < coveredFrom) {
+                    continue;
+                }
+                int slot = slot(minute);
+                if (slotMinutes[slot] < minute) {
+                    slotMinutes[slot] = minute;
+                    counts.get(slot).clear();
+                } else if (slotMinutes[slot] > minute) {
+                    // the minute was already evicted, so it is reported as uncovered
+                    continue;
+                }
+                counts.get(slot).merge(new HitKey(hit.getAppId(), hit.getUriId()), 1L, Long::sum);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Whether every minute of the minute-aligned range {@code [from, to)} is held in memory.
+     */
+    public boolean covers(LocalDateTime from, LocalDateTime to) {
+        return covers(from, to, LocalDateTime.now());
+    }
+
+    boolean covers(LocalDateTime from, LocalDateTime to, LocalDateTime now) {
+        long first = MINUTE.index(from);
+        long last = MINUTE.index(to) - 1;
+        if (!enabled || first < coveredFrom || first <= MINUTE.index(now) - slots || last - first >= slots) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            for (long minute = first; minute <= last; minute++) {
+                if (slotMinutes[slot(minute)] > minute) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Hit counts of the minute-aligned range {@code [from, to)}; only meaningful when {@link #covers} holds.
+     */
+    public List<HitCount> sumHits(LocalDateTime from, LocalDateTime to, List<Integer> uriIds) {
+        Set<Integer> filter = uriIds == null || uriIds.isEmpty() ? null : new HashSet<>(uriIds);
+        Map<HitKey, Long> totals = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (long minute = MINUTE.index(from); minute < MINUTE.index(to); minute++) {
+                int slot = slot(minute);
+                if (slotMinutes[slot] != minute) {
+                    continue;
+                }
+                counts.get(slot).forEach((key, hits) -> {
+                    if (filter == null || filter.contains(key.uriId())) {
+                        totals.merge(key, hits, Long::sum);
+                    }
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return totals.entrySet().stream()
+                .map(e -> new HitCount(e.getKey().appId(), e.getKey().uriId(), e.getValue()))
+                .toList();
+    }
+
+    private int slot(long minute) {
+        return (int) Math.floorMod(minute, (long) slots);
+    }
+}
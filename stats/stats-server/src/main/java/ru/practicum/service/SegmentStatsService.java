@@ -0,0 +1,361 @@
+package ru.practicum.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.TimeSeriesPointDto;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitBucketCount;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.HitKey;
+import ru.practicum.model.TimeSeriesInterval;
+import ru.practicum.segment.HitSegment;
+import ru.practicum.segment.HitSegmentStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static ru.practicum.model.DictionaryTable.APP;
+
+/**
+ * {@link StatsService} over local append-only segment files ({@code stats.storage=segment}) instead of the
+ * {@code endpoint_hit} table. Every query is an exact parallel scan of the segments overlapping its window,
+ * so rollups, sketches and the result cache are not used; app and uri names still live in the dictionary tables.
+ */
+@Service
+@ConditionalOnProperty(prefix = "stats", name = "storage", havingValue = "segment")
+public class SegmentStatsService implements StatsService {
+
+    private final HitDictionary dictionary;
+    private final HeavyHitterTracker heavyHitters;
+    private final HitSegmentStore store;
+    private final StatsMetrics metrics;
+
+    public SegmentStatsService(HitDictionary dictionary,
+                               HeavyHitterTracker heavyHitters,
+                               StatsMetrics metrics,
+                               @Value("${stats.segment.directory:data/segments}") Path directory,
+                               @Value("${stats.segment.records-per-segment:1048576}") int recordsPerSegment) {
+        this.dictionary = dictionary;
+        this.heavyHitters = heavyHitters;
+        this.metrics = metrics;
+        this.store = new HitSegmentStore(directory, recordsPerSegment);
+    }
+
+    @Override
+    public void saveHit(EndpointHitDto hitDto) {
+        saveHits(List.of(hitDto));
+    }
+
+    @Override
+    public void saveHits(List<EndpointHitDto> hitDtos) {
+        List<EndpointHit> hits = dictionary.encode(hitDtos);
+        metrics.hitsAccepted(hits.size());
+        metrics.recordInsert(hits.size(), () -> store.append(hits));
+        heavyHitters.record(hits);
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        boolean filtered = uris != null && !uris.isEmpty();
+        List<ViewStatsDto> stats = dictionary.decode(metrics.recordQuery("segment", filtered, unique,
+                () -> count(start, end, uris, unique).sorted(HitCount.BY_HITS_DESC).toList()));
+        metrics.recordResult(filtered, unique, stats.size());
+        return stats;
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                       long offset, Integer limit) {
+        Stream<HitCount> counts = count(start, end, uris, unique).sorted(HitCount.BY_HITS_DESC).skip(offset);
+        if (limit != null) {
+            counts = counts.limit(limit);
+        }
+        return dictionary.decode(counts.toList());
+    }
+
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                            long offset, Integer limit, Consumer<ViewStatsDto> consumer) {
+        getStats(start, end, uris, unique, offset, limit).forEach(consumer);
+    }
+
+    /**
+     * Scans are exact, so approximate queries are answered exactly.
+     */
+    @Override
+    public List<ViewStatsDto> getApproximateStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                  boolean unique) {
+        return getStats(start, end, uris, unique);
+    }
+
+    @Override
+    public List<ViewStatsDto> getPatternStats(LocalDateTime start, LocalDateTime end, List<String> patterns,
+                                              boolean unique) {
+        Window window = window(start, end, patterns);
+        if (window == null) {
+            return List.of();
+        }
+        Map<Integer, List<String>> patternsByUri = new HashMap<>();
+        dictionary.matchUris(patterns).forEach((pattern, ids) ->
+                ids.forEach(id -> patternsByUri.computeIfAbsent(id, k -> new ArrayList<>()).add(pattern)));
+        PatternCounter totals = store.scan(window.from(), window.to(),
+                () -> new PatternCounter(patternsByUri, unique), PatternCounter::merge);
+        return dictionary.decodePatterns(totals.totals());
+    }
+
+    @Override
+    public List<TimeSeriesPointDto> getTimeSeries(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                  TimeSeriesInterval interval, boolean unique) {
+        Window window = window(start, end, uris);
+        if (window == null) {
+            return List.of();
+        }
+        SeriesCounter series = store.scan(window.from(), window.to(),
+                () -> new SeriesCounter(window.uriIds(), interval, unique), SeriesCounter::merge);
+        return dictionary.decodeBuckets(series.counts());
+    }
+
+    @Override
+    public List<ViewStatsDto> getTopStats(String app, Duration window, int limit, boolean exact) {
+        Integer appId = dictionary.find(APP, List.of(app)).get(app);
+        if (appId == null || limit == 0) {
+            return List.of();
+        }
+        int minutes = HeavyHitterTracker.minutes(window);
+        LocalDateTime now = LocalDateTime.now();
+        if (!exact && heavyHitters.covers(minutes, limit)) {
+            return dictionary.decode(heavyHitters.top(appId, minutes, limit, now));
+        }
+        LocalDateTime start = now.truncatedTo(ChronoUnit.MINUTES).minusMinutes(minutes - 1);
+        return dictionary.decode(count(start, now, null, false)
+                .filter(count -> count.appId() == appId.intValue())
+                .sorted(HitCount.BY_HITS_DESC)
+                .limit(limit)
+                .toList());
+    }
+
+    @Scheduled(fixedDelayString = "${stats.segment.flush-interval:PT1S}")
+    public void flush() {
+        store.flush();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        store.close();
+    }
+
+    private Stream<HitCount> count(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        Window window = window(start, end, uris);
+        if (window == null) {
+            return Stream.empty();
+        }
+        if (unique) {
+            return store.scan(window.from(), window.to(), () -> new UniqueCounter(window.uriIds()),
+                    UniqueCounter::merge).counts();
+        }
+        return store.scan(window.from(), window.to(), () -> new HitCounter(window.uriIds()),
+                HitCounter::merge).counts();
+    }
+
+    /**
+     * Epoch-second bounds and uri filter of a query, or {@code null} when none of the uris was ever hit.
+     */
+    private Window window(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        if (start.isAfter(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "start must be before end");
+        }
+        Set<Integer> uriIds = null;
+        if (uris != null && !uris.isEmpty()) {
+            uriIds = dictionary.findUriIds(uris);
+            if (uriIds.isEmpty()) {
+                return null;
+            }
+        }
+        // records hold whole seconds, so a fractional start excludes its own second
+        long from = start.toEpochSecond(ZoneOffset.UTC) + (start.getNano() > 0 ? 1 : 0);
+        return new Window(from, end.toEpochSecond(ZoneOffset.UTC), uriIds);
+    }
+
+    private static final class HitCounter implements HitSegment.RecordVisitor {
+        private final Set<Integer> uriIds;
+        private final Map<HitKey, long[]> hits = new HashMap<>();
+
+        private HitCounter(Set<Integer> uriIds) {
+            this.uriIds = uriIds;
+        }
+
+        @Override
+        public void accept(int appId, int uriId, long epochSecond, byte[] ip) {
+            if (uriIds == null || uriIds.contains(uriId)) {
+                hits.computeIfAbsent(new HitKey(appId, uriId), key -> new long[1])[0]++;
+            }
+        }
+
+        private HitCounter merge(HitCounter other) {
+            other.hits.forEach((key, count) -> hits.computeIfAbsent(key, k -> new long[1])[0] += count[0]);
+            return this;
+        }
+
+        private Stream<HitCount> counts() {
+            return hits.entrySet().stream()
+                    .map(e -> new HitCount(e.getKey().appId(), e.getKey().uriId(), e.getValue()[0]));
+        }
+    }
+
+    private static final class UniqueCounter implements HitSegment.RecordVisitor {
+        private final Set<Integer> uriIds;
+        private final Map<HitKey, Set<Ip>> visitors = new HashMap<>();
+
+        private UniqueCounter(Set<Integer> uriIds) {
+            this.uriIds = uriIds;
+        }
+
+        @Override
+        public void accept(int appId, int uriId, long epochSecond, byte[] ip) {
+            if (uriIds == null || uriIds.contains(uriId)) {
+                visitors.computeIfAbsent(new HitKey(appId, uriId), key -> new HashSet<>()).add(Ip.of(ip));
+            }
+        }
+
+        private UniqueCounter merge(UniqueCounter other) {
+            other.visitors.forEach((key, ips) -> visitors.merge(key, ips, (a, b) -> {
+                a.addAll(b);
+                return a;
+            }));
+            return this;
+        }
+
+        private Stream<HitCount> counts() {
+            return visitors.entrySet().stream()
+                    .map(e -> new HitCount(e.getKey().appId(), e.getKey().uriId(), (long) e.getValue().size()));
+        }
+    }
+
+    private static final class SeriesCounter implements HitSegment.RecordVisitor {
+        private final Set<Integer> uriIds;
+        private final TimeSeriesInterval interval;
+        private final boolean unique;
+        private final Map<SeriesKey, long[]> hits = new HashMap<>();
+        private final Map<SeriesKey, Set<Ip>> visitors = new HashMap<>();
+
+        private SeriesCounter(Set<Integer> uriIds, TimeSeriesInterval interval, boolean unique) {
+            this.uriIds = uriIds;
+            this.interval = interval;
+            this.unique = unique;
+        }
+
+        @Override
+        public void accept(int appId, int uriId, long epochSecond, byte[] ip) {
+            if (uriIds != null && !uriIds.contains(uriId)) {
+                return;
+            }
+            SeriesKey key = new SeriesKey(appId, uriId, interval.floor(epochSecond));
+            if (unique) {
+                visitors.computeIfAbsent(key, k -> new HashSet<>()).add(Ip.of(ip));
+            } else {
+                hits.computeIfAbsent(key, k -> new long[1])[0]++;
+            }
+        }
+
+        private SeriesCounter merge(SeriesCounter other) {
+            other.hits.forEach((key, count) -> hits.computeIfAbsent(key, k -> new long[1])[0] += count[0]);
+            other.visitors.forEach((key, ips) -> visitors.merge(key, ips, (a, b) -> {
+                a.addAll(b);
+                return a;
+            }));
+            return this;
+        }
+
+        private List<HitBucketCount> counts() {
+            Stream<HitBucketCount> counts = unique
+                    ? visitors.entrySet().stream().map(e -> e.getKey().count(e.getValue().size()))
+                    : hits.entrySet().stream().map(e -> e.getKey().count(e.getValue()[0]));
+            return counts.toList();
+        }
+    }
+
+    private static final class PatternCounter implements HitSegment.RecordVisitor {
+        private final Map<Integer, List<String>> patternsByUri;
+        private final boolean unique;
+        private final Map<PatternKey, long[]> hits = new HashMap<>();
+        private final Map<PatternKey, Set<Ip>> visitors = new HashMap<>();
+
+        private PatternCounter(Map<Integer, List<String>> patternsByUri, boolean unique) {
+            this.patternsByUri = patternsByUri;
+            this.unique = unique;
+        }
+
+        @Override
+        public void accept(int appId, int uriId, long epochSecond, byte[] ip) {
+            List<String> patterns = patternsByUri.get(uriId);
+            if (patterns == null) {
+                return;
+            }
+            for (String pattern : patterns) {
+                PatternKey key = new PatternKey(appId, pattern);
+                if (unique) {
+                    visitors.computeIfAbsent(key, k -> new HashSet<>()).add(Ip.of(ip));
+                } else {
+                    hits.computeIfAbsent(key, k -> new long[1])[0]++;
+                }
+            }
+        }
+
+        private PatternCounter merge(PatternCounter other) {
+            other.hits.forEach((key, count) -> hits.computeIfAbsent(key, k -> new long[1])[0] += count[0]);
+            other.visitors.forEach((key, ips) -> visitors.merge(key, ips, (a, b) -> {
+                a.addAll(b);
+                return a;
+            }));
+            return this;
+        }
+
+        private Map<String, Map<Integer, Long>> totals() {
+            Map<String, Map<Integer, Long>> totals = new HashMap<>();
+            hits.forEach((key, count) ->
+                    totals.computeIfAbsent(key.pattern(), p -> new HashMap<>()).put(key.appId(), count[0]));
+            visitors.forEach((key, ips) ->
+                    totals.computeIfAbsent(key.pattern(), p -> new HashMap<>()).put(key.appId(), (long) ips.size()));
+            return totals;
+        }
+    }
+
+    private record PatternKey(int appId, String pattern) {
+    }
+
+    private record Window(long from, long to, Set<Integer> uriIds) {
+    }
+
+    private record SeriesKey(int appId, int uriId, long bucket) {
+        private HitBucketCount count(long hits) {
+            return new HitBucketCount(appId, uriId, LocalDateTime.ofEpochSecond(bucket, 0, ZoneOffset.UTC), hits);
+        }
+    }
+
+    private record Ip(long high, long low) {
+        private static Ip of(byte[] ip) {
+            ByteBuffer address = ByteBuffer.wrap(ip);
+            return new Ip(address.getLong(0), address.getLong(8));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the ingest and query paths. Queries are tagged with the structure they read ({@code raw} rows of
+ * endpoint_hit, {@code rollup} tables, a {@code stream}ed raw query or hit {@code segment}s) and whether they
+ * filter by uris and count unique visitors, so each of the four {@code StatsRepository} aggregations has its own
+ * latency and row count.
+ */
+@Component
+public class StatsMetrics {
+
+    private final MeterRegistry registry;
+    private final Counter acceptedHits;
+    private final Timer insertTimer;
+    private final DistributionSummary insertBatchSize;
+
+    public StatsMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.acceptedHits = Counter.builder("stats.ingest.hits")
+                .description("Hits accepted by /hit and /hits")
+                .baseUnit("hits")
+                .register(registry);
+        this.insertTimer = Timer.builder("stats.ingest.insert")
+                .description("Time to write one batch of hits to storage")
+                .register(registry);
+        this.insertBatchSize = DistributionSummary.builder("stats.ingest.batch.size")
+                .description("Hits per inserted batch")
+                .baseUnit("hits")
+                .register(registry);
+    }
+
+    public void hitsAccepted(int count) {
+        acceptedHits.increment(count);
+    }
+
+    public void recordInsert(int batchSize, Runnable insert) {
+        insertBatchSize.record(batchSize);
+        insertTimer.record(insert);
+    }
+
+    /**
+     * Times {@code query} and records how many rows it returned.
+     */
+    public <T> List<T> recordQuery(String source, boolean uris, boolean unique, Supplier<List<T>> query) {
+        Tags tags = Tags.of("source", source, "uris", String.valueOf(uris), "unique", String.valueOf(unique));
+        long started = System.nanoTime();
+        List<T> rows = query.get();
+        queryTimer(tags).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        recordRows(tags, rows.size());
+        return rows;
+    }
+
+    public void recordStream(boolean uris, boolean unique, long nanos, long rows) {
+        Tags tags = Tags.of("source", "stream", "uris", String.valueOf(uris), "unique", String.valueOf(unique));
+        queryTimer(tags).record(nanos, TimeUnit.NANOSECONDS);
+        recordRows(tags, rows);
+    }
+
+    /**
+     * Records the size of a {@code /stats} result as returned to the caller, whether or not it came from the cache.
+     */
+    public void recordResult(boolean uris, boolean unique, int size) {
+        DistributionSummary.builder("stats.query.result.size")
+                .description("Entries in a /stats result")
+                .baseUnit("rows")
+                .tags("uris", String.valueOf(uris), "unique", String.valueOf(unique))
+                .register(registry)
+                .record(size);
+    }
+
+    private Timer queryTimer(Tags tags) {
+        return Timer.builder("stats.query.latency")
+                .description("Time to run a stats query against storage")
+                .tags(tags)
+                .register(registry);
+    }
+
+    private void recordRows(Tags tags, long rows) {
+        DistributionSummary.builder("stats.query.rows")
+                .description("Rows returned by the storage query")
+                .baseUnit("rows")
+                .tags(tags)
+                .register(registry)
+                .record(rows);
+    }
+}
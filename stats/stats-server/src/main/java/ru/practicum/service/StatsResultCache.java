@@ -0,0 +1,163 @@
+package ru.practicum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.cache.SingleFlight;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.model.EndpointHit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caches {@code /stats} results for windows aligned to whole {@code granularity} steps, keyed on the window,
+ * sorted distinct uris and the unique flag. A window with unaligned bounds, or one reaching into the still-open
+ * step, is computed exactly for the caller's bounds and not cached, so caching never changes a count.
+ * <p>
+ * Committed hits invalidate every entry, cached or still loading, whose window contains one of them. Cached
+ * windows all end before the open step, so hits stamped with the current time skip the scan of the entries;
+ * only late hits pay for it. Windows entirely in the past stay until evicted by size or TTL.
+ * <p>
+ * A miss runs its loader on the calling thread outside any cache lock, so a load that blocks on the database
+ * does not pin a virtual thread; concurrent callers for the same key wait for it through {@link SingleFlight}
+ * and get its result or its exception.
+ */
+@Component
+public class StatsResultCache {
+
+    public record Key(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+    }
+
+    private final boolean enabled;
+    private final long granularitySeconds;
+    private final Cache<Key, List<ViewStatsDto>> cache;
+    private final SingleFlight<Key, List<ViewStatsDto>> loads = new SingleFlight<>();
+    private final Counter invalidations;
+    private final AtomicLong latestEnd = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong invalidationScans = new AtomicLong();
+
+    public StatsResultCache(MeterRegistry meterRegistry,
+                            @Value("${stats.query.cache.enabled:true}") boolean enabled,
+                            @Value("${stats.query.cache.granularity:PT1M}") Duration granularity,
+                            @Value("${stats.query.cache.max-size:10000}") long maxSize,
+                            @Value("${stats.query.cache.ttl:PT5M}") Duration ttl) {
+        this.enabled = enabled;
+        this.granularitySeconds = granularity.toSeconds();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "stats.query");
+        this.invalidations = meterRegistry.counter("stats.query.cache.invalidations");
+    }
+
+    public List<ViewStatsDto> get(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                  Function<Key, List<ViewStatsDto>> loader) {
+        Key key = normalize(start, end, uris, unique);
+        if (!enabled || !cacheable(key, start, end)) {
+            return loader.apply(new Key(start, end, key.uris(), unique));
+        }
+        latestEnd.accumulateAndGet(key.end().toEpochSecond(ZoneOffset.UTC), Math::max);
+        List<ViewStatsDto> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        return loads.load(key, () -> {
+            // a load that finished since the lookup above has already cached its result
+            List<ViewStatsDto> loaded = cache.asMap().get(key);
+            if (loaded != null) {
+                return loaded;
+            }
+            long scans = invalidationScans.get();
+            loaded = loader.apply(key);
+            cache.put(key, loaded);
+            // hits committed while loading may be missing from the result; an invalidation scan that ran before
+            // the put above could not drop it
+            if (invalidationScans.get() != scans) {
+                cache.asMap().remove(key, loaded);
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * Drops entries whose window overlaps {@code hits}, including ones still loading: their callers get the
+     * result being computed, later callers load again.
+     */
+    public void invalidate(List<EndpointHit> hits) {
+        if (!enabled || hits.isEmpty()) {
+            return;
+        }
+        LocalDateTime first = hits.get(0).getTimestamp();
+        LocalDateTime last = first;
+        for (EndpointHit hit : hits) {
+            if (hit.getTimestamp().isBefore(first)) {
+                first = hit.getTimestamp();
+            } else if (hit.getTimestamp().isAfter(last)) {
+                last = hit.getTimestamp();
+            }
+        }
+        if (first.toEpochSecond(ZoneOffset.UTC) > latestEnd.get()) {
+            return;
+        }
+        invalidationScans.incrementAndGet();
+        int stale = 0;
+        for (Key key : loads.keys()) {
+            if (overlaps(key, first, last)) {
+                loads.forget(key);
+                stale++;
+            }
+        }
+        List<Key> staleCached = new ArrayList<>();
+        for (Key key : cache.asMap().keySet()) {
+            if (overlaps(key, first, last)) {
+                staleCached.add(key);
+            }
+        }
+        cache.invalidateAll(staleCached);
+        stale += staleCached.size();
+        if (stale > 0) {
+            invalidations.increment(stale);
+        }
+    }
+
+    Key normalize(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return new Key(floor(start), ceil(end),
+                uris == null || uris.isEmpty() ? null : List.copyOf(new TreeSet<>(uris)),
+                unique);
+    }
+
+    private boolean cacheable(Key key, LocalDateTime start, LocalDateTime end) {
+        return key.start().equals(start) && key.end().equals(end) && !end.isAfter(floor(LocalDateTime.now()));
+    }
+
+    private static boolean overlaps(Key key, LocalDateTime first, LocalDateTime last) {
+        return !key.start().isAfter(last) && !key.end().isBefore(first);
+    }
+
+    private LocalDateTime floor(LocalDateTime time) {
+        if (granularitySeconds <= 0) {
+            return time;
+        }
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(seconds, granularitySeconds) * granularitySeconds,
+                0, ZoneOffset.UTC);
+    }
+
+    private LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime floor = floor(time);
+        return floor.equals(time) ? floor : floor.plusSeconds(granularitySeconds);
+    }
+}
@@ -1,13 +1,52 @@
 package ru.practicum.service;
 
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.TimeSeriesPointDto;
 import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.model.TimeSeriesInterval;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface StatsService {
     void saveHit(EndpointHitDto hitDto);
 
+    void saveHits(List<EndpointHitDto> hitDtos);
+
     List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
-}
\ No newline at end of file
+
+    /**
+     * Returns at most {@code limit} rows (all when {@code null}) after skipping {@code offset} rows,
+     * in descending hits order.
+     */
+    List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                long offset, Integer limit);
+
+    /**
+     * Same rows as the paged {@link #getStats}, handed to {@code consumer} one at a time without building a list.
+     */
+    void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                     long offset, Integer limit, Consumer<ViewStatsDto> consumer);
+
+    List<ViewStatsDto> getApproximateStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
+
+    /**
+     * Totals per app and uri pattern, most hits first; the uri of every row is the pattern (see
+     * {@link ru.practicum.model.UriPattern}). Unique counts are distinct ips across all uris matching the pattern.
+     */
+    List<ViewStatsDto> getPatternStats(LocalDateTime start, LocalDateTime end, List<String> patterns, boolean unique);
+
+    /**
+     * Hit counts per app, uri and {@code interval} bucket, ordered by app, uri and bucket; buckets without
+     * hits are left out. Unique counts are distinct ips within each bucket.
+     */
+    List<TimeSeriesPointDto> getTimeSeries(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                           TimeSeriesInterval interval, boolean unique);
+
+    /**
+     * Most viewed uris of {@code app} in the last {@code window}, estimated in memory unless {@code exact}.
+     */
+    List<ViewStatsDto> getTopStats(String app, Duration window, int limit, boolean exact);
+}
@@ -1,32 +1,73 @@
 package ru.practicum.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.TimeSeriesPointDto;
 import ru.practicum.dto.ViewStatsDto;
 import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitBucketCount;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.TimeSeriesInterval;
+import ru.practicum.repository.HitTimeSeriesRepository;
 import ru.practicum.repository.StatsRepository;
+import ru.practicum.repository.StatsStreamRepository;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static ru.practicum.model.DictionaryTable.APP;
 
 @Service
 @RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "stats", name = "storage", havingValue = "database", matchIfMissing = true)
 public class StatsServiceImpl implements StatsService {
 
     private final StatsRepository statsRepository;
+    private final StatsStreamRepository streamRepository;
+    private final HitTimeSeriesRepository timeSeriesRepository;
+    private final HitDictionary dictionary;
+    private final HeavyHitterTracker heavyHitters;
+    private final HitIngestor ingestor;
+    private final HitRollupService rollupService;
+    private final UniqueVisitorSketchService sketchService;
+    private final StatsResultCache resultCache;
+    private final StatsMetrics metrics;
+    private final Optional<WriteBehindHitBuffer> writeBehindBuffer;
 
     @Override
     public void saveHit(EndpointHitDto hitDto) {
-        EndpointHit hit = EndpointHit.builder()
-                .app(hitDto.getApp())
-                .uri(hitDto.getUri())
-                .ip(hitDto.getIp())
-                .timestamp(hitDto.getTimestamp())
-                .build();
-        statsRepository.save(hit);
+        EndpointHit hit = dictionary.encode(List.of(hitDto)).get(0);
+        metrics.hitsAccepted(1);
+        if (writeBehindBuffer.isPresent()) {
+            writeBehindBuffer.get().add(hit);
+            return;
+        }
+        ingestor.ingest(List.of(hit));
+    }
+
+    @Override
+    public void saveHits(List<EndpointHitDto> hitDtos) {
+        List<EndpointHit> hits = dictionary.encode(hitDtos);
+        metrics.hitsAccepted(hits.size());
+        if (writeBehindBuffer.isPresent()) {
+            writeBehindBuffer.get().addAll(hits);
+            return;
+        }
+        ingestor.ingest(hits);
     }
 
     @Override
@@ -34,13 +75,157 @@ public class StatsServiceImpl implements StatsService {
         if (start.isAfter(end)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "start must be before end");
         }
-        if (uris != null && !uris.isEmpty()) {
+        List<ViewStatsDto> stats = resultCache.get(start, end, uris, unique,
+                key -> query(key.start(), key.end(), key.uris(), key.unique()));
+        metrics.recordResult(uris != null && !uris.isEmpty(), unique, stats.size());
+        return stats;
+    }
+
+    private List<ViewStatsDto> query(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        List<Integer> uriIds = findUriIds(uris);
+        if (uriIds != null && uriIds.isEmpty()) {
+            return List.of();
+        }
+        boolean filtered = uriIds != null;
+        if (!unique && rollupService.isEnabled()) {
+            return dictionary.decode(metrics.recordQuery("rollup", filtered, false,
+                    () -> rollupService.getHits(start, end, uriIds)));
+        }
+        List<HitCount> counts = metrics.recordQuery("raw", filtered, unique, () -> {
+            if (filtered) {
+                return unique
+                        ? statsRepository.findAllUniqueStatsWithUris(start, end, uriIds)
+                        : statsRepository.findAllStatsWithUris(start, end, uriIds);
+            }
             return unique
-                    ? statsRepository.findAllUniqueStatsWithUris(start, end, uris)
-                    : statsRepository.findAllStatsWithUris(start, end, uris);
+                    ? statsRepository.findAllUniqueStatsWithoutUris(start, end)
+                    : statsRepository.findAllStatsWithoutUris(start, end);
+        });
+        return dictionary.decode(counts);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                       long offset, Integer limit) {
+        List<ViewStatsDto> stats = new ArrayList<>();
+        streamStats(start, end, uris, unique, offset, limit, stats::add);
+        return stats;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                            long offset, Integer limit, Consumer<ViewStatsDto> consumer) {
+        if (start.isAfter(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "start must be before end");
+        }
+        List<Integer> uriIds = findUriIds(uris);
+        if (uriIds != null && uriIds.isEmpty()) {
+            return;
+        }
+        long[] rows = new long[1];
+        long started = System.nanoTime();
+        Consumer<HitCount> decoder = count -> {
+            rows[0]++;
+            consumer.accept(dictionary.decode(count));
+        };
+        if (!unique && rollupService.isTablesEnabled()) {
+            rollupService.streamHits(start, end, uriIds, offset, limit, decoder);
+        } else {
+            streamRepository.stream(start, end, uriIds, unique, offset, limit, decoder);
+        }
+        metrics.recordStream(uriIds != null, unique, System.nanoTime() - started, rows[0]);
+    }
+
+    @Override
+    public List<ViewStatsDto> getApproximateStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                  boolean unique) {
+        if (!unique || !sketchService.isEnabled()) {
+            return getStats(start, end, uris, unique);
+        }
+        if (start.isAfter(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "start must be before end");
+        }
+        List<Integer> uriIds = findUriIds(uris);
+        if (uriIds != null && uriIds.isEmpty()) {
+            return List.of();
+        }
+        return dictionary.decode(sketchService.getUniqueHits(start, end, uriIds));
+    }
+
+    @Override
+    public List<ViewStatsDto> getPatternStats(LocalDateTime start, LocalDateTime end, List<String> patterns,
+                                              boolean unique) {
+        if (start.isAfter(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "start must be before end");
+        }
+        Map<String, Set<Integer>> matches = dictionary.matchUris(patterns);
+        Map<String, Map<Integer, Long>> totals = new HashMap<>();
+        if (unique) {
+            matches.forEach((pattern, ids) -> {
+                if (!ids.isEmpty()) {
+                    statsRepository.findUniqueVisitorsPerApp(start, end, List.copyOf(ids)).forEach(count ->
+                            totals.computeIfAbsent(pattern, p -> new HashMap<>()).put(count.appId(), count.hits()));
+                }
+            });
+            return dictionary.decodePatterns(totals);
+        }
+        List<Integer> uriIds = matches.values().stream().flatMap(Set::stream).distinct().toList();
+        if (uriIds.isEmpty()) {
+            return List.of();
+        }
+        List<HitCount> counts = rollupService.isEnabled()
+                ? rollupService.getHits(start, end, uriIds)
+                : statsRepository.findAllStatsWithUris(start, end, uriIds);
+        for (HitCount count : counts) {
+            matches.forEach((pattern, ids) -> {
+                if (ids.contains(count.uriId())) {
+                    totals.computeIfAbsent(pattern, p -> new HashMap<>()).merge(count.appId(), count.hits(), Long::sum);
+                }
+            });
+        }
+        return dictionary.decodePatterns(totals);
+    }
+
+    @Override
+    public List<TimeSeriesPointDto> getTimeSeries(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                  TimeSeriesInterval interval, boolean unique) {
+        if (start.isAfter(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "start must be before end");
+        }
+        List<Integer> uriIds = findUriIds(uris);
+        if (uriIds != null && uriIds.isEmpty()) {
+            return List.of();
+        }
+        List<HitBucketCount> counts = unique
+                ? timeSeriesRepository.countByBucket(interval, start, end, true, uriIds, true)
+                : rollupService.getHitSeries(start, end, uriIds, interval);
+        return dictionary.decodeBuckets(counts);
+    }
+
+    @Override
+    public List<ViewStatsDto> getTopStats(String app, Duration window, int limit, boolean exact) {
+        Integer appId = dictionary.find(APP, List.of(app)).get(app);
+        if (appId == null || limit == 0) {
+            return List.of();
+        }
+        int minutes = HeavyHitterTracker.minutes(window);
+        LocalDateTime now = LocalDateTime.now();
+        if (!exact && heavyHitters.covers(minutes, limit)) {
+            return dictionary.decode(heavyHitters.top(appId, minutes, limit, now));
+        }
+        LocalDateTime start = now.truncatedTo(ChronoUnit.MINUTES).minusMinutes(minutes - 1);
+        return dictionary.decode(statsRepository.findTopUris(appId, start, now, PageRequest.of(0, limit)));
+    }
+
+    /**
+     * Returns {@code null} when no uri filter is given and an empty list when none of the uris was ever hit.
+     */
+    private List<Integer> findUriIds(List<String> uris) {
+        if (uris == null || uris.isEmpty()) {
+            return null;
         }
-        return unique
-                ? statsRepository.findAllUniqueStatsWithoutUris(start, end)
-                : statsRepository.findAllStatsWithoutUris(start, end);
+        return List.copyOf(dictionary.findUriIds(uris));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitBucket;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.HitKey;
+import ru.practicum.repository.HitSketchRepository;
+import ru.practicum.sketch.HyperLogLog;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static ru.practicum.model.RollupGranularity.HOUR;
+
+/**
+ * Approximate unique-visitor counts merged from hourly HyperLogLog sketches.
+ * Whole hours inside the window come from stored sketches; the ragged edges are
+ * hashed from raw {@code endpoint_hit} ips into the same sketch, so only the
+ * HyperLogLog estimation error (see {@link HyperLogLog}) separates the result from the exact count.
+ */
+@Service
+@RequiredArgsConstructor
+public class UniqueVisitorSketchService {
+
+    private final HitSketchRepository sketchRepository;
+
+    @Value("${stats.sketch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stats.sketch.precision:12}")
+    private int precision;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void record(List<EndpointHit> hits) {
+        if (!enabled) {
+            return;
+        }
+        Map<HitBucket, HyperLogLog> sketches = new TreeMap<>(HitBucket.KEY_ORDER);
+        for (EndpointHit hit : hits) {
+            sketches.computeIfAbsent(new HitBucket(hit.getAppId(), hit.getUriId(), HOUR.floor(hit.getTimestamp())),
+                            key -> new HyperLogLog(precision))
+                    .add(hit.getIp());
+        }
+        sketches.forEach(sketchRepository::merge);
+    }
+
+    public List<HitCount> getUniqueHits(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        Map<HitKey, HyperLogLog> merged = new HashMap<>();
+        LocalDateTime hourStart = HOUR.ceil(start);
+        LocalDateTime hourEnd = HOUR.floor(end);
+        if (hourStart.isBefore(hourEnd)) {
+            sketchRepository.scanVisitors(start, hourStart, false, uriIds,
+                    (key, ip) -> sketchFor(merged, key).add(ip));
+            sketchRepository.scanSketches(hourStart, hourEnd, uriIds,
+                    (key, sketch) -> sketchFor(merged, key).merge(sketch));
+            sketchRepository.scanVisitors(hourEnd, end, true, uriIds,
+                    (key, ip) -> sketchFor(merged, key).add(ip));
+        } else {
+            sketchRepository.scanVisitors(start, end, true, uriIds,
+                    (key, ip) -> sketchFor(merged, key).add(ip));
+        }
+        return merged.entrySet().stream()
+                .map(e -> new HitCount(e.getKey().appId(), e.getKey().uriId(), e.getValue().estimate()))
+                .sorted(HitCount.BY_HITS_DESC)
+                .toList();
+    }
+
+    private HyperLogLog sketchFor(Map<HitKey, HyperLogLog> merged, HitKey key) {
+        return merged.computeIfAbsent(key, k -> new HyperLogLog(precision));
+    }
+}
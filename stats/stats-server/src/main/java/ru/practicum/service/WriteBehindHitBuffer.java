@@ -0,0 +1,173 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import ru.practicum.model.EndpointHit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-memory buffer that decouples hit ingestion from the database.
+ * A dedicated flusher thread drains it in batches once {@code batch-size} hits are queued
+ * or the oldest queued hit has waited {@code max-loss-window}, whichever comes first.
+ * When the buffer is full the caller writes its hit synchronously, so hits are never rejected.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "stats.ingest.write-behind", name = "enabled", havingValue = "true")
+public class WriteBehindHitBuffer implements SmartLifecycle {
+
+    private final HitIngestor ingestor;
+    private final BlockingQueue<EndpointHit> queue;
+    private final int batchSize;
+    private final Duration maxLossWindow;
+    private final boolean flushOnShutdown;
+    private final Duration shutdownTimeout;
+
+    private final Counter flushedCounter;
+    private final Counter overflowCounter;
+    private final Counter failedCounter;
+    private final Counter discardedCounter;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public WriteBehindHitBuffer(HitIngestor ingestor,
+                                MeterRegistry meterRegistry,
+                                @Value("${stats.ingest.write-behind.capacity:65536}") int capacity,
+                                @Value("${stats.ingest.write-behind.batch-size:1000}") int batchSize,
+                                @Value("${stats.ingest.write-behind.max-loss-window:1s}") Duration maxLossWindow,
+                                @Value("${stats.ingest.write-behind.flush-on-shutdown:true}") boolean flushOnShutdown,
+                                @Value("${stats.ingest.write-behind.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this.ingestor = ingestor;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxLossWindow = maxLossWindow;
+        this.flushOnShutdown = flushOnShutdown;
+        this.shutdownTimeout = shutdownTimeout;
+
+        Gauge.builder("stats.ingest.buffer.depth", queue, BlockingQueue::size)
+                .description("Hits waiting in the write-behind buffer")
+                .register(meterRegistry);
+        Gauge.builder("stats.ingest.buffer.capacity", () -> capacity)
+                .register(meterRegistry);
+        this.flushedCounter = meterRegistry.counter("stats.ingest.buffer.flushed");
+        this.overflowCounter = meterRegistry.counter("stats.ingest.buffer.overflow");
+        this.failedCounter = meterRegistry.counter("stats.ingest.buffer.failed");
+        this.discardedCounter = meterRegistry.counter("stats.ingest.buffer.discarded");
+    }
+
+    public void add(EndpointHit hit) {
+        if (!running || !queue.offer(hit)) {
+            overflowCounter.increment();
+            ingestor.ingest(List.of(hit));
+        }
+    }
+
+    public void addAll(List<EndpointHit> hits) {
+        List<EndpointHit> overflow = new ArrayList<>();
+        for (EndpointHit hit : hits) {
+            if (!running || !queue.offer(hit)) {
+                overflow.add(hit);
+            }
+        }
+        if (!overflow.isEmpty()) {
+            overflowCounter.increment(overflow.size());
+            ingestor.ingest(overflow);
+        }
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher = new Thread(this::runFlusher, "stats-write-behind-flusher");
+        flusher.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            flusher.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int left = queue.size();
+        if (left > 0) {
+            discardedCounter.increment(left);
+            log.warn("Write-behind buffer stopped with {} unflushed hits", left);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // stop only after the web server has stopped accepting hits
+        return DEFAULT_PHASE - 4096;
+    }
+
+    private void runFlusher() {
+        while (running || (flushOnShutdown && !queue.isEmpty())) {
+            List<EndpointHit> batch = new ArrayList<>(batchSize);
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+        }
+    }
+
+    private void fillBatch(List<EndpointHit> batch) throws InterruptedException {
+        EndpointHit first = running ? queue.poll(maxLossWindow.toNanos(), TimeUnit.NANOSECONDS) : queue.poll();
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxLossWindow.toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            EndpointHit next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<EndpointHit> batch) {
+        try {
+            ingestor.ingest(batch);
+            flushedCounter.increment(batch.size());
+        } catch (RuntimeException e) {
+            failedCounter.increment(batch.size());
+            log.error("Failed to flush {} buffered hits", batch.size(), e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package ru.practicum.sketch;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HyperLogLog distinct-value sketch (Flajolet et al.) with linear-counting correction for small cardinalities.
+ * <p>
+ * With {@code 2^p} registers the relative standard error of {@link #estimate()} is {@code 1.04 / sqrt(2^p)}:
+ * about 1.6% for the default {@code p = 12} (so roughly 95% of estimates fall within 3.3% of the exact count).
+ * Merging sketches is lossless, so the error does not grow with the number of merged buckets.
+ * Sketches of different precision merge at the lower one, which is exactly the sketch that precision would have
+ * built, so stored sketches stay usable after {@code stats.sketch.precision} changes.
+ * <p>
+ * Serialized sketches are sparse ({@code index, rank} pairs) while few registers are set and dense otherwise.
+ */
+public class HyperLogLog {
+
+    private static final byte SPARSE = 1;
+    private static final byte DENSE = 2;
+
+    private int precision;
+    private byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 16");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public void add(String value) {
+        add(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void add(byte[] value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (64 - precision));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision < precision) {
+            registers = withPrecision(other.precision).registers;
+            precision = other.precision;
+        }
+        HyperLogLog source = other.precision > precision ? other.withPrecision(precision) : other;
+        for (int i = 0; i < registers.length; i++) {
+            if (source.registers[i] > registers[i]) {
+                registers[i] = source.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Folds this sketch down to {@code target} precision: the index bits dropped from each register join its rank.
+     */
+    public HyperLogLog withPrecision(int target) {
+        if (target > precision) {
+            throw new IllegalArgumentException("Cannot raise HyperLogLog precision from " + precision + " to " + target);
+        }
+        HyperLogLog folded = new HyperLogLog(target);
+        int dropped = precision - target;
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] == 0) {
+                continue;
+            }
+            int droppedBits = i & ((1 << dropped) - 1);
+            int rank = droppedBits == 0
+                    ? dropped + registers[i]
+                    : Integer.numberOfLeadingZeros(droppedBits) - (Integer.SIZE - dropped) + 1;
+            int index = i >>> dropped;
+            if (rank > folded.registers[index]) {
+                folded.registers[index] = (byte) rank;
+            }
+        }
+        return folded;
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+        if (nonZero * 3 < registers.length) {
+            ByteBuffer buffer = ByteBuffer.allocate(2 + 4 + nonZero * 3)
+                    .put(SPARSE)
+                    .put((byte) precision)
+                    .putInt(nonZero);
+            for (int i = 0; i < registers.length; i++) {
+                if (registers[i] != 0) {
+                    buffer.putShort((short) i).put(registers[i]);
+                }
+            }
+            return buffer.array();
+        }
+        return ByteBuffer.allocate(2 + registers.length)
+                .put(DENSE)
+                .put((byte) precision)
+                .put(registers)
+                .array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte encoding = buffer.get();
+        HyperLogLog sketch = new HyperLogLog(buffer.get());
+        if (encoding == SPARSE) {
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                int index = Short.toUnsignedInt(buffer.getShort());
+                sketch.registers[index] = buffer.get();
+            }
+        } else if (encoding == DENSE) {
+            buffer.get(sketch.registers);
+        } else {
+            throw new IllegalArgumentException("Unknown HyperLogLog encoding " + encoding);
+        }
+        return sketch;
+    }
+
+    private static double alpha(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+
+    // 64-bit FNV-1a followed by the MurmurHash3 finalizer to spread the bits
+    private static long hash(byte[] value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
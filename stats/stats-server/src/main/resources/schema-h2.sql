@@ -0,0 +1,13 @@
+DROP TABLE IF EXISTS endpoint_hit;
+
+-- unpartitioned, for tests and benchmarks on H2
+CREATE TABLE endpoint_hit (
+    id BIGSERIAL PRIMARY KEY,
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    ip BYTEA NOT NULL,
+    timestamp TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_endpoint_hit_timestamp ON endpoint_hit (timestamp);
+CREATE INDEX idx_endpoint_hit_uri_timestamp ON endpoint_hit (uri_id, timestamp);
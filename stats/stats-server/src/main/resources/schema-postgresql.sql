@@ -0,0 +1,20 @@
+DROP TABLE IF EXISTS endpoint_hit;
+
+-- LIKE 'prefix%' lookups for uri patterns; the unique index only serves them under the C collation
+CREATE INDEX idx_stats_uri_name_prefix ON stats_uri (name varchar_pattern_ops);
+
+CREATE TABLE endpoint_hit (
+    id BIGSERIAL,
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    ip BYTEA NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+
+    CONSTRAINT pk_endpoint_hit PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+-- catches hits outside the created partitions until HitPartitionManager moves them out
+CREATE TABLE endpoint_hit_default PARTITION OF endpoint_hit DEFAULT;
+
+CREATE INDEX idx_endpoint_hit_timestamp ON endpoint_hit (timestamp);
+CREATE INDEX idx_endpoint_hit_uri_timestamp ON endpoint_hit (uri_id, timestamp);
@@ -1,9 +1,53 @@
-DROP TABLE IF EXISTS endpoint_hit;
-
-CREATE TABLE endpoint_hit (
-    id BIGSERIAL PRIMARY KEY,
-    app VARCHAR(255) NOT NULL,
-    uri VARCHAR(255) NOT NULL,
-    ip VARCHAR(255) NOT NULL,
-    timestamp TIMESTAMP NOT NULL
-);
\ No newline at end of file
+-- Tables shared by PostgreSQL and H2; endpoint_hit is created by schema-postgresql.sql or schema-h2.sql
+DROP TABLE IF EXISTS endpoint_hit_minute;
+DROP TABLE IF EXISTS endpoint_hit_hour;
+DROP TABLE IF EXISTS endpoint_hit_hll_hour;
+DROP TABLE IF EXISTS stats_app;
+DROP TABLE IF EXISTS stats_uri;
+
+CREATE TABLE stats_app (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+
+    CONSTRAINT uq_stats_app_name UNIQUE (name)
+);
+
+CREATE TABLE stats_uri (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+
+    CONSTRAINT uq_stats_uri_name UNIQUE (name)
+);
+
+CREATE TABLE endpoint_hit_minute (
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    hits BIGINT NOT NULL,
+
+    CONSTRAINT pk_endpoint_hit_minute PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX idx_endpoint_hit_minute_bucket ON endpoint_hit_minute (bucket);
+
+CREATE TABLE endpoint_hit_hour (
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    hits BIGINT NOT NULL,
+
+    CONSTRAINT pk_endpoint_hit_hour PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX idx_endpoint_hit_hour_bucket ON endpoint_hit_hour (bucket);
+
+CREATE TABLE endpoint_hit_hll_hour (
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    sketch BYTEA NOT NULL,
+
+    CONSTRAINT pk_endpoint_hit_hll_hour PRIMARY KEY (uri_id, bucket, app_id)
+);
+
+CREATE INDEX idx_endpoint_hit_hll_hour_bucket ON endpoint_hit_hll_hour (bucket);
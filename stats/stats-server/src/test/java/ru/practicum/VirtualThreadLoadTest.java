@@ -0,0 +1,110 @@
+package ru.practicum;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the server with Tomcat on a bounded platform thread pool and then on virtual threads, and drives
+ * {@value #CLIENTS} concurrent NDJSON uploads that each trickle in over about half a second, the way slow
+ * clients hold a request thread while the server blocks reading the body.
+ * Run with {@code mvn test -Dtest=VirtualThreadLoadTest -Dstats.benchmark=true} on Java 21+.
+ */
+@EnabledIfSystemProperty(named = "stats.benchmark", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadLoadTest {
+
+    private static final int CLIENTS = 1000;
+    private static final int LINES = 5;
+    private static final long LINE_DELAY_MILLIS = 100;
+    private static final int PLATFORM_THREADS = 50;
+
+    @Test
+    void virtualThreadsServeMoreSlowRequestsPerSecond() throws Exception {
+        double platform = run(false);
+        double virtual = run(true);
+
+        assertThat(virtual)
+                .as("virtual threads %,.0f requests/s, platform threads (max %d) %,.0f requests/s",
+                        virtual, PLATFORM_THREADS, platform)
+                .isGreaterThan(platform);
+    }
+
+    private static double run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(StatsServerApplication.class)
+                .run("--server.port=0",
+                        "--server.tomcat.threads.max=" + PLATFORM_THREADS,
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads + ";DB_CLOSE_DELAY=-1",
+                        "--stats.partitioning.enabled=false")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URL url = new URL("http://localhost:" + port + "/hits");
+            // registers the app name before the clients race to insert it
+            assertThat(upload(url, -1)).isEqualTo(201);
+            ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+            try {
+                long started = System.nanoTime();
+                List<Future<Integer>> responses = new ArrayList<>(CLIENTS);
+                for (int client = 0; client < CLIENTS; client++) {
+                    int id = client;
+                    responses.add(clients.submit(() -> upload(url, id)));
+                }
+                for (Future<Integer> response : responses) {
+                    assertThat(response.get()).isEqualTo(201);
+                }
+                return CLIENTS * 1_000_000_000.0 / (System.nanoTime() - started);
+            } finally {
+                clients.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Uploads again after {@code Retry-After} while the server sheds the upload, as the stats client does.
+     */
+    private static int upload(URL url, int client) throws Exception {
+        int status = send(url, client);
+        while (status == 429) {
+            Thread.sleep(1000);
+            status = send(url, client);
+        }
+        return status;
+    }
+
+    private static int send(URL url, int client) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/x-ndjson");
+        connection.setDoOutput(true);
+        connection.setChunkedStreamingMode(0);
+        try (OutputStream body = connection.getOutputStream()) {
+            for (int line = 0; line < LINES; line++) {
+                body.write(("{\"app\":\"ewm\",\"uri\":\"/events/" + client + "\",\"ip\":\"10.0.0." + line % 250
+                        + "\",\"timestamp\":\"2025-07-01 00:00:00\"}\n").getBytes(StandardCharsets.UTF_8));
+                body.flush();
+                Thread.sleep(LINE_DELAY_MILLIS);
+            }
+        }
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package ru.practicum.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.DelegatingServletInputStream;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AdmissionControlFilter filter = new AdmissionControlFilter(registry, true, 1, 1,
+            Duration.ofSeconds(2), DataSize.ofBytes(64), DataSize.ofBytes(256));
+
+    @Test
+    void shedsIngestOverBudgetWith429() throws Exception {
+        List<MockHttpServletResponse> nested = new ArrayList<>();
+        FilterChain holdsPermit = (request, response) -> nested.add(perform("POST", "/hits"));
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/hit"), first, holdsPermit);
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(nested.get(0).getStatus()).isEqualTo(429);
+        assertThat(nested.get(0).getHeader("Retry-After")).isEqualTo("2");
+        assertThat(registry.get("stats.admission.shed").tag("budget", "ingest").counter().count()).isEqualTo(1.0);
+        assertThat(perform("POST", "/hit").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void keepsReadBudgetWhileIngestIsExhausted() throws Exception {
+        List<MockHttpServletResponse> nested = new ArrayList<>();
+        FilterChain holdsPermit = (request, response) -> {
+            nested.add(perform("GET", "/stats"));
+            nested.add(perform("GET", "/actuator/health"));
+        };
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/hit"), new MockHttpServletResponse(), holdsPermit);
+
+        assertThat(nested).extracting(MockHttpServletResponse::getStatus).containsExactly(200, 200);
+    }
+
+    @Test
+    void shedsReadsOverBudgetWith503() throws Exception {
+        List<MockHttpServletResponse> nested = new ArrayList<>();
+        FilterChain holdsPermit = (request, response) -> {
+            nested.add(perform("GET", "/stats/top"));
+            nested.add(perform("POST", "/stats"));
+        };
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/stats"), new MockHttpServletResponse(), holdsPermit);
+
+        assertThat(nested).extracting(MockHttpServletResponse::getStatus).containsExactly(503, 503);
+        assertThat(registry.get("stats.admission.shed").tag("budget", "read").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void readsIngestBodyBeforeTakingPermit() throws Exception {
+        List<MockHttpServletResponse> nested = new ArrayList<>();
+        // a slow upload: another ingest request arrives while the rest of this body is still in transit
+        InputStream trickle = new SequenceInputStream(
+                new ByteArrayInputStream("{\"app\":".getBytes(StandardCharsets.UTF_8)),
+                new InputStream() {
+                    private final InputStream rest = new ByteArrayInputStream("1}".getBytes(StandardCharsets.UTF_8));
+                    private boolean arrived;
+
+                    @Override
+                    public int read() throws IOException {
+                        if (!arrived) {
+                            arrived = true;
+                            nested.add(perform("POST", "/hits"));
+                        }
+                        return rest.read();
+                    }
+                });
+        MockHttpServletRequest upload = new MockHttpServletRequest("POST", "/hits") {
+            @Override
+            public ServletInputStream getInputStream() {
+                return new DelegatingServletInputStream(trickle);
+            }
+        };
+        List<String> bodies = new ArrayList<>();
+
+        filter.doFilter(upload, new MockHttpServletResponse(), (request, response) ->
+                bodies.add(StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8)));
+
+        assertThat(nested).extracting(MockHttpServletResponse::getStatus).containsExactly(200);
+        assertThat(bodies).containsExactly("{\"app\":1}");
+    }
+
+    @Test
+    void rejectsIngestBodyOverLimitWith413() throws Exception {
+        MockHttpServletRequest upload = new MockHttpServletRequest("POST", "/hits");
+        upload.setContent(new byte[65]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        List<Boolean> passed = new ArrayList<>();
+
+        filter.doFilter(upload, response, (request, res) -> passed.add(true));
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(passed).isEmpty();
+        assertThat(perform("POST", "/hit").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void shedsUploadUnreadWhileBufferedBodiesUseTheBudget() throws Exception {
+        SimpleMeterRegistry bufferRegistry = new SimpleMeterRegistry();
+        AdmissionControlFilter smallBuffer = new AdmissionControlFilter(bufferRegistry, true, 2, 1,
+                Duration.ofSeconds(2), DataSize.ofBytes(64), DataSize.ofBytes(100));
+        MockHttpServletRequest held = new MockHttpServletRequest("POST", "/hits");
+        held.setContent(new byte[60]);
+        List<Boolean> read = new ArrayList<>();
+        MockHttpServletRequest waiting = new MockHttpServletRequest("POST", "/hits") {
+            @Override
+            public ServletInputStream getInputStream() {
+                read.add(true);
+                return super.getInputStream();
+            }
+        };
+        waiting.setContent(new byte[60]);
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+
+        smallBuffer.doFilter(held, new MockHttpServletResponse(), (request, response) ->
+                smallBuffer.doFilter(waiting, shed, (req, res) -> {
+                }));
+
+        assertThat(shed.getStatus()).isEqualTo(429);
+        assertThat(shed.getErrorMessage()).isEqualTo("Too many hit uploads being read");
+        assertThat(read).isEmpty();
+        assertThat(bufferRegistry.get("stats.admission.ingest.buffered").gauge().value()).isZero();
+    }
+
+    private MockHttpServletResponse perform(String method, String uri) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(new MockHttpServletRequest(method, uri), response, (req, res) -> {
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+}
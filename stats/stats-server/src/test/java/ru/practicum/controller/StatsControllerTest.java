@@ -1,27 +1,40 @@
 package ru.practicum.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.HitWireFormat;
+import ru.practicum.dto.StatsQueryDto;
+import ru.practicum.dto.TimeSeriesPointDto;
 import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.model.TimeSeriesInterval;
 import ru.practicum.service.StatsService;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(StatsController.class)
+@Import(SimpleMeterRegistry.class)
 class StatsControllerTest {
 
     @Autowired
@@ -52,6 +65,112 @@ class StatsControllerTest {
         Mockito.verify(service).saveHit(any(EndpointHitDto.class));
     }
 
+    @Test
+    void saveHits_shouldAcceptJsonArray() throws Exception {
+        EndpointHitDto first = EndpointHitDto.builder()
+                .app("test-app")
+                .uri("/a")
+                .ip("127.0.0.1")
+                .timestamp(LocalDateTime.parse("2025-07-29 18:45:00", FORMATTER))
+                .build();
+        EndpointHitDto second = EndpointHitDto.builder()
+                .app("test-app")
+                .uri("/b")
+                .ip("127.0.0.2")
+                .timestamp(LocalDateTime.parse("2025-07-29 18:46:00", FORMATTER))
+                .build();
+
+        mockMvc.perform(post("/hits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(first, second))))
+                .andExpect(status().isCreated());
+
+        Mockito.verify(service).saveHits(List.of(first, second));
+    }
+
+    @Test
+    void saveHit_shouldAcceptSmile() throws Exception {
+        EndpointHitDto dto = EndpointHitDto.builder()
+                .app("test-app")
+                .uri("/test")
+                .ip("127.0.0.1")
+                .timestamp(LocalDateTime.parse("2025-07-29 18:45:00", FORMATTER))
+                .build();
+
+        mockMvc.perform(post("/hit")
+                        .contentType(HitWireFormat.SMILE_VALUE)
+                        .content(HitWireFormat.smileMapper().writeValueAsBytes(dto)))
+                .andExpect(status().isCreated());
+
+        Mockito.verify(service).saveHit(dto);
+    }
+
+    @Test
+    void saveHits_shouldAcceptSmileArraySmallerThanJson() throws Exception {
+        List<EndpointHitDto> hits = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            hits.add(EndpointHitDto.builder()
+                    .app("ewm-main-service")
+                    .uri("/events/" + i % 10)
+                    .ip("192.168.0." + i)
+                    .timestamp(LocalDateTime.parse("2025-07-29 18:45:00", FORMATTER).plusSeconds(i))
+                    .build());
+        }
+        byte[] smile = HitWireFormat.smileMapper().writeValueAsBytes(hits);
+
+        mockMvc.perform(post("/hits")
+                        .contentType(HitWireFormat.SMILE_VALUE)
+                        .content(smile))
+                .andExpect(status().isCreated());
+
+        Mockito.verify(service).saveHits(hits);
+        assertThat(smile.length).isLessThan(objectMapper.writeValueAsBytes(hits).length / 2);
+    }
+
+    @Test
+    void saveHits_shouldAcceptNdjsonStream() throws Exception {
+        String body = """
+                {"app":"test-app","uri":"/a","ip":"127.0.0.1","timestamp":"2025-07-29 18:45:00"}
+                {"app":"test-app","uri":"/b","ip":"127.0.0.2","timestamp":"2025-07-29 18:46:00"}
+                """;
+
+        mockMvc.perform(post("/hits")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isCreated());
+
+        Mockito.verify(service).saveHits(argThat(hits -> hits.size() == 2
+                && "/a".equals(hits.get(0).getUri())
+                && "/b".equals(hits.get(1).getUri())));
+    }
+
+    @Test
+    void saveHits_shouldReturn400_whenNdjsonMalformed() throws Exception {
+        mockMvc.perform(post("/hits")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"app\":\"test-app\"\nnot-json"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    void saveHits_shouldStoreNothing_whenLaterNdjsonLineMalformed() throws Exception {
+        String body = """
+                {"app":"test-app","uri":"/a","ip":"127.0.0.1","timestamp":"2025-07-29 18:45:00"}
+                {"app":"test-app","uri":"/b","ip":"127.0.0.2","timestamp":"2025-07-29 18:46:00"}
+                {"app":"test-app","uri":
+                """;
+
+        mockMvc.perform(post("/hits")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason("Malformed NDJSON hit 3; no hits were stored"));
+
+        Mockito.verifyNoInteractions(service);
+    }
+
     @Test
     void getStats_shouldReturnList() throws Exception {
         ViewStatsDto stat = new ViewStatsDto("test-app", "/uri", 10L);
@@ -78,6 +197,56 @@ class StatsControllerTest {
         );
     }
 
+    @Test
+    void queryStats_shouldTakeUrisFromBody() throws Exception {
+        Mockito.when(service.getStats(LocalDateTime.parse("2025-07-01 00:00:00", FORMATTER),
+                        LocalDateTime.parse("2025-07-30 00:00:00", FORMATTER), List.of("/a", "/b"), true))
+                .thenReturn(List.of(new ViewStatsDto("test-app", "/a", 4L)));
+
+        mockMvc.perform(post("/stats")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"start\":\"2025-07-01 00:00:00\",\"end\":\"2025-07-30 00:00:00\","
+                                + "\"uris\":[\"/a\",\"/b\"],\"unique\":true}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].uri").value("/a"))
+                .andExpect(jsonPath("$[0].hits").value(4));
+    }
+
+    @Test
+    void queryStats_shouldReturn400_whenTooManyUris() throws Exception {
+        List<String> uris = new ArrayList<>();
+        for (int i = 0; i <= 1000; i++) {
+            uris.add("/events/" + i);
+        }
+
+        mockMvc.perform(post("/stats")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StatsQueryDto(
+                                LocalDateTime.parse("2025-07-01 00:00:00", FORMATTER),
+                                LocalDateTime.parse("2025-07-30 00:00:00", FORMATTER), uris, false))))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    void getStats_shouldUseSketchesWhenApproximate() throws Exception {
+        Mockito.when(service.getApproximateStats(any(LocalDateTime.class), any(LocalDateTime.class),
+                        eq(List.of("/uri")), eq(true)))
+                .thenReturn(List.of(new ViewStatsDto("test-app", "/uri", 5L)));
+
+        mockMvc.perform(get("/stats")
+                        .param("start", "2025-07-01 00:00:00")
+                        .param("end", "2025-07-30 00:00:00")
+                        .param("uris", "/uri")
+                        .param("unique", "true")
+                        .param("approximate", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].hits").value(5));
+
+        Mockito.verify(service, Mockito.never()).getStats(any(), any(), any(), anyBoolean());
+    }
+
     @Test
     void getStats_shouldReturn400_whenBadDateFormat() throws Exception {
         mockMvc.perform(get("/stats")
@@ -108,4 +277,152 @@ class StatsControllerTest {
                 isNull(),
                 eq(false));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getStats_shouldPageWhenLimitGiven() throws Exception {
+        Mockito.when(service.getStats(any(LocalDateTime.class), any(LocalDateTime.class), isNull(), eq(false),
+                        eq(20L), eq(10)))
+                .thenReturn(List.of(new ViewStatsDto("test-app", "/uri", 3L)));
+
+        mockMvc.perform(get("/stats")
+                        .param("start", "2025-07-01 00:00:00")
+                        .param("end", "2025-07-30 00:00:00")
+                        .param("limit", "10")
+                        .param("offset", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].hits").value(3));
+
+        Mockito.verify(service, Mockito.never()).getStats(any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void getStats_shouldReturn400_whenLimitNegative() throws Exception {
+        mockMvc.perform(get("/stats")
+                        .param("start", "2025-07-01 00:00:00")
+                        .param("end", "2025-07-30 00:00:00")
+                        .param("limit", "-1"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    void getStats_shouldStreamNdjson() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Consumer<ViewStatsDto> consumer = invocation.getArgument(6);
+            consumer.accept(new ViewStatsDto("test-app", "/a", 2L));
+            consumer.accept(new ViewStatsDto("test-app", "/b", 1L));
+            return null;
+        }).when(service).streamStats(any(LocalDateTime.class), any(LocalDateTime.class), isNull(), eq(true),
+                eq(0L), isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/stats")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .param("start", "2025-07-01 00:00:00")
+                        .param("end", "2025-07-30 00:00:00")
+                        .param("unique", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("""
+                        {"app":"test-app","uri":"/a","hits":2}
+                        {"app":"test-app","uri":"/b","hits":1}
+                        """));
+    }
+
+    @Test
+    void getStats_shouldReturn400_whenStreamWindowInverted() throws Exception {
+        mockMvc.perform(get("/stats")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .param("start", "2035-07-01 00:00:00")
+                        .param("end", "2020-07-30 00:00:00"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    void getTopStats_shouldPassWindowAndLimit() throws Exception {
+        Mockito.when(service.getTopStats("ewm-main-service", Duration.ofMinutes(15), 5, false))
+                .thenReturn(List.of(new ViewStatsDto("ewm-main-service", "/events/1", 42L)));
+
+        mockMvc.perform(get("/stats/top")
+                        .param("app", "ewm-main-service")
+                        .param("window", "PT15M")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].uri").value("/events/1"))
+                .andExpect(jsonPath("$[0].hits").value(42));
+    }
+
+    @Test
+    void getTopStats_shouldReturn400_whenWindowNotPositive() throws Exception {
+        mockMvc.perform(get("/stats/top")
+                        .param("app", "ewm-main-service")
+                        .param("window", "PT0S"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    void getTimeSeries_shouldReturnBuckets() throws Exception {
+        LocalDateTime start = LocalDateTime.parse("2025-07-29 00:00:00", FORMATTER);
+        LocalDateTime end = LocalDateTime.parse("2025-07-29 23:59:59", FORMATTER);
+        Mockito.when(service.getTimeSeries(start, end, List.of("/events/1"), TimeSeriesInterval.HOUR, true))
+                .thenReturn(List.of(new TimeSeriesPointDto("ewm-main-service", "/events/1", start.plusHours(3), 7L)));
+
+        mockMvc.perform(get("/stats/timeseries")
+                        .param("start", "2025-07-29 00:00:00")
+                        .param("end", "2025-07-29 23:59:59")
+                        .param("uris", "/events/1")
+                        .param("interval", "HOUR")
+                        .param("unique", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bucket").value("2025-07-29 03:00:00"))
+                .andExpect(jsonPath("$[0].hits").value(7));
+    }
+
+    @Test
+    void getTimeSeries_shouldReturn400_whenTooManyBuckets() throws Exception {
+        mockMvc.perform(get("/stats/timeseries")
+                        .param("start", "2025-01-01 00:00:00")
+                        .param("end", "2025-12-31 00:00:00")
+                        .param("interval", "MINUTE"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    void getStats_shouldRollUpPerPatternWhenGroupedByPattern() throws Exception {
+        LocalDateTime start = LocalDateTime.parse("2025-07-29 00:00:00", FORMATTER);
+        LocalDateTime end = LocalDateTime.parse("2025-07-30 00:00:00", FORMATTER);
+        Mockito.when(service.getPatternStats(start, end, List.of("/events/*"), true))
+                .thenReturn(List.of(new ViewStatsDto("ewm-main-service", "/events/*", 12L)));
+
+        mockMvc.perform(get("/stats")
+                        .param("start", "2025-07-29 00:00:00")
+                        .param("end", "2025-07-30 00:00:00")
+                        .param("uris", "/events/*")
+                        .param("unique", "true")
+                        .param("groupBy", "pattern"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].uri").value("/events/*"))
+                .andExpect(jsonPath("$[0].hits").value(12));
+    }
+
+    @Test
+    void getStats_shouldReturn400_whenGroupByPatternWithoutUris() throws Exception {
+        mockMvc.perform(get("/stats")
+                        .param("start", "2025-07-29 00:00:00")
+                        .param("end", "2025-07-30 00:00:00")
+                        .param("groupBy", "pattern"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(service);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IpAddressTest {
+
+    @Test
+    void storesIpv4AsMappedIpv6() {
+        assertThat(HexFormat.of().formatHex(IpAddress.parse("192.168.0.1")))
+                .isEqualTo("00000000000000000000ffffc0a80001");
+    }
+
+    @Test
+    void parsesIpv6AndNormalizesMappedIpv4() {
+        assertThat(IpAddress.parse("2001:db8::1")).hasSize(IpAddress.LENGTH);
+        assertThat(IpAddress.parse("2001:db8::1")).isEqualTo(IpAddress.parse("2001:0db8:0:0:0:0:0:1"));
+        assertThat(IpAddress.parse("::ffff:10.0.0.1")).isEqualTo(IpAddress.parse("10.0.0.1"));
+        assertThat(IpAddress.parse("fe80::1%eth0")).isEqualTo(IpAddress.parse("fe80::1"));
+    }
+
+    @Test
+    void rejectsNonLiterals() {
+        for (String ip : new String[]{"", "localhost", "256.0.0.1", "1.2.3", "1.2.3.4.5", "1..2.3", "::g", "1:2"}) {
+            assertThatThrownBy(() -> IpAddress.parse(ip)).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThatThrownBy(() -> IpAddress.parse(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void encodesNonLiteralsAsStableHashOutsideRealAddresses() {
+        assertThat(IpAddress.encode("10.0.0.1")).isEqualTo(IpAddress.parse("10.0.0.1"));
+        assertThat(IpAddress.encode("unknown")).isEqualTo(IpAddress.encode("unknown"))
+                .isNotEqualTo(IpAddress.encode("proxy.example"));
+        assertThat(HexFormat.of().formatHex(IpAddress.encode("unknown"))).startsWith("0100000000000000");
+        assertThat(IpAddress.encode("")).hasSize(IpAddress.LENGTH);
+        assertThatThrownBy(() -> IpAddress.encode(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
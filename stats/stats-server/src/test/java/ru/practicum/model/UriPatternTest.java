@@ -0,0 +1,45 @@
+package ru.practicum.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UriPatternTest {
+
+    @Test
+    void trailingWildcardMatchesWholeSubtree() {
+        UriPattern pattern = UriPattern.parse("/events/*");
+
+        assertThat(pattern.prefix()).isEqualTo("/events/");
+        assertThat(pattern.matches("/events/1")).isTrue();
+        assertThat(pattern.matches("/events/1/comments")).isTrue();
+        assertThat(pattern.matches("/events")).isFalse();
+        assertThat(pattern.matches("/eventsx/1")).isFalse();
+    }
+
+    @Test
+    void placeholderMatchesOneSegment() {
+        UriPattern pattern = UriPattern.parse("/events/{id}/comments");
+
+        assertThat(pattern.prefix()).isEqualTo("/events/");
+        assertThat(pattern.matches("/events/42/comments")).isTrue();
+        assertThat(pattern.matches("/events//comments")).isFalse();
+        assertThat(pattern.matches("/events/1/2/comments")).isFalse();
+    }
+
+    @Test
+    void innerWildcardStaysWithinSegmentAndLiteralsAreQuoted() {
+        UriPattern pattern = UriPattern.parse("/v1.0/*.json");
+
+        assertThat(pattern.matches("/v1.0/a.json")).isTrue();
+        assertThat(pattern.matches("/v1x0/a.json")).isFalse();
+        assertThat(pattern.matches("/v1.0/a/b.json")).isFalse();
+    }
+
+    @Test
+    void rejectsUnclosedPlaceholder() {
+        assertThat(UriPattern.isPattern("/events/{id")).isTrue();
+        assertThatThrownBy(() -> UriPattern.parse("/events/{id")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,76 @@
+package ru.practicum.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.IpAddress;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the JPA {@code save} path with {@link MultiRowInsertHitWriter}.
+ * Run with {@code mvn test -Dtest=HitWriterBenchmarkTest -Dstats.benchmark=true}.
+ */
+@DataJpaTest
+@Import(MultiRowInsertHitWriter.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "stats.benchmark", matches = "true")
+class HitWriterBenchmarkTest {
+
+    private static final int HITS = 20_000;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private HitWriter writer;
+
+    @Autowired
+    private StatsRepository repository;
+
+    @Test
+    void compareJpaSaveWithMultiRowInsert() {
+        List<EndpointHit> hits = hits();
+
+        long jpaNanos = Long.MAX_VALUE;
+        long writerNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            repository.deleteAllInBatch();
+            long started = System.nanoTime();
+            for (EndpointHit hit : hits) {
+                repository.save(copy(hit));
+            }
+            jpaNanos = Math.min(jpaNanos, System.nanoTime() - started);
+
+            repository.deleteAllInBatch();
+            started = System.nanoTime();
+            writer.write(hits);
+            writerNanos = Math.min(writerNanos, System.nanoTime() - started);
+        }
+
+        System.out.printf("statsRepository.save: %,d hits/s%n", HITS * 1_000_000_000L / jpaNanos);
+        System.out.printf("MultiRowInsertHitWriter: %,d hits/s%n", HITS * 1_000_000_000L / writerNanos);
+        assertThat(repository.count()).isEqualTo(HITS);
+    }
+
+    private static List<EndpointHit> hits() {
+        LocalDateTime base = LocalDateTime.of(2025, 7, 1, 0, 0);
+        List<EndpointHit> hits = new ArrayList<>(HITS);
+        for (int i = 0; i < HITS; i++) {
+            hits.add(new EndpointHit(null, 1, i % 500,
+                    IpAddress.parse("10.0." + (i % 250) + "." + (i % 200)), base.plusSeconds(i)));
+        }
+        return hits;
+    }
+
+    private static EndpointHit copy(EndpointHit hit) {
+        return new EndpointHit(null, hit.getAppId(), hit.getUriId(), hit.getIp(), hit.getTimestamp());
+    }
+}
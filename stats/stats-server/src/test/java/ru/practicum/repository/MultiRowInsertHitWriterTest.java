@@ -0,0 +1,49 @@
+package ru.practicum.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.IpAddress;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "stats.ingest.batch-size=2")
+@Import(MultiRowInsertHitWriter.class)
+class MultiRowInsertHitWriterTest {
+
+    @Autowired
+    private HitWriter writer;
+
+    @Autowired
+    private StatsRepository repository;
+
+    @Test
+    void writesAllChunks() {
+        LocalDateTime ts = LocalDateTime.of(2025, 7, 15, 12, 0);
+        writer.write(List.of(
+                new EndpointHit(null, 1, 1, IpAddress.parse("127.0.0.1"), ts),
+                new EndpointHit(null, 1, 1, IpAddress.parse("127.0.0.2"), ts),
+                new EndpointHit(null, 1, 2, IpAddress.parse("127.0.0.1"), ts)));
+
+        List<HitCount> stats = repository.findAllStatsWithoutUris(
+                LocalDateTime.of(2025, 7, 1, 0, 0),
+                LocalDateTime.of(2025, 7, 30, 0, 0));
+
+        assertThat(stats).containsExactly(
+                new HitCount(1, 1, 2L),
+                new HitCount(1, 2, 1L));
+    }
+
+    @Test
+    void ignoresEmptyInput() {
+        writer.write(List.of());
+
+        assertThat(repository.count()).isZero();
+    }
+}
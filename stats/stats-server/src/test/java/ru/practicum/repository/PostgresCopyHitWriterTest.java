@@ -0,0 +1,83 @@
+package ru.practicum.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.IpAddress;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Needs a disposable PostgreSQL database; its tables are recreated.
+ * Run with {@code mvn test -Dtest=PostgresCopyHitWriterTest -Dstats.postgres.url=jdbc:postgresql://localhost:5432/stats}
+ * and {@code -Dstats.postgres.username}/{@code -Dstats.postgres.password} when they differ from {@code postgres}.
+ */
+@DataJpaTest(properties = {
+        "stats.ingest.writer=copy",
+        "stats.ingest.batch-size=2",
+        "spring.datasource.url=${stats.postgres.url}",
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.datasource.username=${stats.postgres.username:postgres}",
+        "spring.datasource.password=${stats.postgres.password:postgres}",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.platform=postgresql",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PostgresCopyHitWriter.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "stats.postgres.url", matches = ".+")
+class PostgresCopyHitWriterTest {
+
+    private static final LocalDateTime TS = LocalDateTime.of(2025, 7, 15, 12, 0);
+
+    @Autowired
+    private HitWriter writer;
+
+    @Autowired
+    private StatsRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void writesAllChunks() {
+        writer.write(List.of(
+                new EndpointHit(null, 1, 1, IpAddress.parse("127.0.0.1"), TS),
+                new EndpointHit(null, 1, 1, IpAddress.parse("::1"), TS),
+                new EndpointHit(null, 1, 2, IpAddress.parse("127.0.0.1"), TS)));
+
+        List<HitCount> stats = repository.findAllStatsWithoutUris(TS.minusDays(1), TS.plusDays(1));
+
+        assertThat(stats).containsExactly(
+                new HitCount(1, 1, 2L),
+                new HitCount(1, 2, 1L));
+    }
+
+    @Test
+    void storesNothingWhenLaterChunkFails() {
+        List<EndpointHit> hits = List.of(
+                new EndpointHit(null, 1, 1, IpAddress.parse("127.0.0.1"), TS),
+                new EndpointHit(null, 1, 1, IpAddress.parse("127.0.0.2"), TS),
+                new EndpointHit(null, 1, null, IpAddress.parse("127.0.0.3"), TS));
+
+        assertThatThrownBy(() -> writer.write(hits)).isInstanceOf(DataAccessException.class);
+
+        assertThat(repository.count()).isZero();
+    }
+}
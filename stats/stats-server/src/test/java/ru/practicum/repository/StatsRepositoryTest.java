@@ -3,7 +3,10 @@ package ru.practicum.repository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.IpAddress;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -18,7 +21,7 @@ class StatsRepositoryTest {
 
     @Test
     void testSaveAndQuery() {
-        repository.save(new EndpointHit(null, "test-app", "/uri", "127.0.0.1",
+        repository.save(new EndpointHit(null, 1, 1, IpAddress.parse("127.0.0.1"),
                 LocalDateTime.of(2025, 7, 15, 12, 0)));
 
         List<?> stats = repository.findAllStatsWithoutUris(
@@ -27,4 +30,19 @@ class StatsRepositoryTest {
 
         assertThat(stats).hasSize(1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findTopUrisFiltersByAppAndLimits() {
+        LocalDateTime ts = LocalDateTime.of(2025, 7, 15, 12, 0);
+        for (int uriId = 1; uriId <= 3; uriId++) {
+            for (int i = 0; i < uriId; i++) {
+                repository.save(new EndpointHit(null, 1, uriId, IpAddress.parse("127.0.0.1"), ts));
+            }
+        }
+        repository.save(new EndpointHit(null, 2, 1, IpAddress.parse("127.0.0.1"), ts));
+
+        List<HitCount> top = repository.findTopUris(1, ts.minusHours(1), ts, PageRequest.of(0, 2));
+
+        assertThat(top).containsExactly(new HitCount(1, 3, 3L), new HitCount(1, 2, 2L));
+    }
+}
@@ -0,0 +1,76 @@
+package ru.practicum.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.IpAddress;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({MultiRowInsertHitWriter.class, StatsStreamRepository.class})
+class StatsStreamRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 7, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2025, 7, 30, 0, 0);
+
+    @Autowired
+    private HitWriter writer;
+
+    @Autowired
+    private StatsStreamRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime ts = LocalDateTime.of(2025, 7, 15, 12, 0);
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int uriId = 1; uriId <= 4; uriId++) {
+            for (int i = 0; i < uriId; i++) {
+                hits.add(new EndpointHit(null, 1, uriId, IpAddress.parse("10.0.0." + (i % 2)), ts));
+            }
+        }
+        hits.add(new EndpointHit(null, 2, 4, IpAddress.parse("10.0.0.1"), ts));
+        hits.add(new EndpointHit(null, 1, 1, IpAddress.parse("10.0.0.1"), END.plusSeconds(1)));
+        writer.write(hits);
+    }
+
+    @Test
+    void streamsInHitOrder() {
+        assertThat(stream(null, false, 0, null)).containsExactly(
+                new HitCount(1, 4, 4L),
+                new HitCount(1, 3, 3L),
+                new HitCount(1, 2, 2L),
+                new HitCount(1, 1, 1L),
+                new HitCount(2, 4, 1L));
+    }
+
+    @Test
+    void appliesOffsetAndLimit() {
+        assertThat(stream(null, false, 1, 2)).containsExactly(
+                new HitCount(1, 3, 3L),
+                new HitCount(1, 2, 2L));
+        assertThat(stream(null, false, 4, 10)).containsExactly(new HitCount(2, 4, 1L));
+    }
+
+    @Test
+    void countsUniqueIpsWithinUris() {
+        assertThat(stream(List.of(1, 4), true, 0, null)).containsExactly(
+                new HitCount(1, 4, 2L),
+                new HitCount(1, 1, 1L),
+                new HitCount(2, 4, 1L));
+    }
+
+    private List<HitCount> stream(List<Integer> uriIds, boolean unique, long offset, Integer limit) {
+        List<HitCount> counts = new ArrayList<>();
+        repository.stream(START, END, uriIds, unique, offset, limit, counts::add);
+        return counts;
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.segment;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.IpAddress;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HitSegmentStoreTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 7, 1, 0, 0);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void scansOnlyRecordsInsideWindowAcrossSegments() throws Exception {
+        try (HitSegmentStore store = new HitSegmentStore(directory, 5000)) {
+            List<EndpointHit> hits = new ArrayList<>();
+            for (int i = 0; i < 12_000; i++) {
+                hits.add(hit(1 + i % 3, BASE.plusSeconds(i)));
+            }
+            store.append(hits);
+
+            assertThat(segmentFiles()).hasSize(3);
+            assertThat(count(store, BASE.plusSeconds(100), BASE.plusSeconds(10_099))).isEqualTo(10_000);
+            assertThat(count(store, BASE.plusSeconds(11_999), BASE.plusDays(1))).isEqualTo(1);
+            assertThat(count(store, BASE.minusDays(1), BASE.minusSeconds(1))).isZero();
+        }
+    }
+
+    @Test
+    void recoversRecordsAfterReopen() throws Exception {
+        try (HitSegmentStore store = new HitSegmentStore(directory, 100)) {
+            store.append(List.of(hit(1, BASE), hit(2, BASE.plusSeconds(1)), hit(3, BASE.plusSeconds(2))));
+        }
+
+        try (HitSegmentStore store = new HitSegmentStore(directory, 100)) {
+            store.append(List.of(hit(4, BASE.plusSeconds(3))));
+
+            assertThat(segmentFiles()).hasSize(1);
+            assertThat(count(store, BASE, BASE.plusSeconds(3))).isEqualTo(4);
+            assertThat(count(store, BASE.plusSeconds(1), BASE.plusSeconds(2))).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void passesDecodedRecordsToVisitor() throws Exception {
+        try (HitSegmentStore store = new HitSegmentStore(directory, 100)) {
+            byte[] ip = IpAddress.parse("2001:db8::1");
+            store.append(List.of(new EndpointHit(null, 7, 42, ip, BASE)));
+
+            List<String> records = store.scan(Long.MIN_VALUE, Long.MAX_VALUE, Recorder::new, Recorder::merge).records;
+
+            assertThat(records).containsExactly("7/42/" + BASE.toEpochSecond(ZoneOffset.UTC) + "/" + ip[15]);
+        }
+    }
+
+    private static long count(HitSegmentStore store, LocalDateTime from, LocalDateTime to) {
+        return store.scan(from.toEpochSecond(ZoneOffset.UTC), to.toEpochSecond(ZoneOffset.UTC),
+                Recorder::new, Recorder::merge).records.size();
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+
+    private static EndpointHit hit(int uriId, LocalDateTime timestamp) {
+        return new EndpointHit(null, 1, uriId, IpAddress.parse("10.0.0.1"), timestamp);
+    }
+
+    private static final class Recorder implements HitSegment.RecordVisitor {
+        private final List<String> records = new ArrayList<>();
+
+        @Override
+        public void accept(int appId, int uriId, long epochSecond, byte[] ip) {
+            records.add(appId + "/" + uriId + "/" + epochSecond + "/" + ip[15]);
+        }
+
+        private Recorder merge(Recorder other) {
+            records.addAll(other.records);
+            return this;
+        }
+    }
+}
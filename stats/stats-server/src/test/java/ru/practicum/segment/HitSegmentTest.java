@@ -0,0 +1,56 @@
+package ru.practicum.segment;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.model.IpAddress;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HitSegmentTest {
+
+    private static final byte[] IP = IpAddress.parse("10.0.0.1");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void recoversUpToRecordCutShortByCrash() throws Exception {
+        Path path = directory.resolve("segment");
+        try (HitSegment segment = HitSegment.open(path, 100)) {
+            segment.append(1, 11, 1000, IP);
+            segment.append(1, 12, 1001, IP);
+        }
+        // a crash in the middle of the third append: every field but the app id reached the file
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ByteBuffer partial = ByteBuffer.allocate(HitSegment.RECORD_SIZE - 4)
+                    .putInt(13)
+                    .putLong(1002)
+                    .put(IP)
+                    .flip();
+            channel.write(partial, 2L * HitSegment.RECORD_SIZE + 4);
+        }
+
+        try (HitSegment segment = HitSegment.open(path, 100)) {
+            assertThat(segment.size()).isEqualTo(2);
+            assertThat(uris(segment)).containsExactly(11, 12);
+
+            segment.append(2, 14, 1003, IP);
+
+            assertThat(uris(segment)).containsExactly(11, 12, 14);
+        }
+    }
+
+    private static List<Integer> uris(HitSegment segment) {
+        List<Integer> uris = new ArrayList<>();
+        segment.scan(0, segment.blocks(), Long.MIN_VALUE, Long.MAX_VALUE,
+                (appId, uriId, epochSecond, ip) -> uris.add(uriId));
+        return uris;
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.IpAddress;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeavyHitterTrackerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 7, 15, 12, 30, 20);
+
+    private final HeavyHitterTracker tracker = new HeavyHitterTracker(true, Duration.ofHours(1), 100);
+
+    @Test
+    void ranksUrisOfOneApp() {
+        List<EndpointHit> hits = new ArrayList<>();
+        hits.addAll(hits(1, 1, 3, NOW));
+        hits.addAll(hits(1, 2, 5, NOW.minusMinutes(10)));
+        hits.addAll(hits(1, 3, 5, NOW.minusMinutes(20)));
+        hits.addAll(hits(2, 4, 50, NOW));
+        tracker.record(hits);
+
+        assertThat(tracker.top(1, 60, 2, NOW)).containsExactly(
+                new HitCount(1, 2, 5L),
+                new HitCount(1, 3, 5L));
+    }
+
+    @Test
+    void onlyCountsSlotsInsideWindow() {
+        tracker.record(hits(1, 1, 4, NOW.minusMinutes(30)));
+        tracker.record(hits(1, 2, 1, NOW.withSecond(0)));
+
+        assertThat(tracker.top(1, 5, 10, NOW)).containsExactly(new HitCount(1, 2, 1L));
+        assertThat(tracker.top(1, 31, 10, NOW)).containsExactly(
+                new HitCount(1, 1, 4L),
+                new HitCount(1, 2, 1L));
+        assertThat(tracker.top(1, 60, 10, NOW.plusMinutes(45))).containsExactly(new HitCount(1, 2, 1L));
+    }
+
+    @Test
+    void dropsHitsOlderThanTheSlotTheyMapTo() {
+        tracker.record(hits(1, 1, 1, NOW));
+        tracker.record(hits(1, 2, 1, NOW.minusHours(1)));
+
+        assertThat(tracker.top(1, 60, 10, NOW)).containsExactly(new HitCount(1, 1, 1L));
+    }
+
+    @Test
+    void coversOnlyTrackedWindowAndCapacity() {
+        assertThat(tracker.covers(60, 100)).isTrue();
+        assertThat(tracker.covers(61, 10)).isFalse();
+        assertThat(tracker.covers(10, 101)).isFalse();
+        assertThat(new HeavyHitterTracker(false, Duration.ofHours(1), 100).covers(1, 1)).isFalse();
+    }
+
+    @Test
+    void roundsWindowUpToWholeMinutesAndClampsHugeWindows() {
+        assertThat(HeavyHitterTracker.minutes(Duration.ofSeconds(1))).isEqualTo(1);
+        assertThat(HeavyHitterTracker.minutes(Duration.ofSeconds(61))).isEqualTo(2);
+        assertThat(HeavyHitterTracker.minutes(Duration.ofHours(1))).isEqualTo(60);
+        assertThat(HeavyHitterTracker.minutes(Duration.ofMinutes(Integer.MAX_VALUE + 1L)))
+                .isEqualTo(Integer.MAX_VALUE);
+        assertThat(HeavyHitterTracker.minutes(Duration.ofSeconds(Long.MAX_VALUE))).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    private static List<EndpointHit> hits(int appId, int uriId, int count, LocalDateTime timestamp) {
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            hits.add(new EndpointHit(null, appId, uriId, IpAddress.parse("10.0.0.1"), timestamp));
+        }
+        return hits;
+    }
+}
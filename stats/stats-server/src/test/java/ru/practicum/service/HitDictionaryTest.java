@@ -0,0 +1,91 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.model.HitCount;
+import ru.practicum.repository.DictionaryRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.practicum.model.DictionaryTable.APP;
+import static ru.practicum.model.DictionaryTable.URI;
+
+@DataJpaTest
+@Import({DictionaryRepository.class, HitDictionary.class})
+class HitDictionaryTest {
+
+    @Autowired
+    private HitDictionary dictionary;
+
+    @Autowired
+    private DictionaryRepository repository;
+
+    @Test
+    void resolveAssignsStableIds() {
+        Map<String, Integer> first = dictionary.resolve(URI, List.of("/stable/a", "/stable/b"));
+        Map<String, Integer> second = dictionary.resolve(URI, List.of("/stable/b", "/stable/a"));
+
+        assertThat(first).hasSize(2).isEqualTo(second);
+        assertThat(first.get("/stable/a")).isNotEqualTo(first.get("/stable/b"));
+    }
+
+    @Test
+    void findLeavesOutUnknownNames() {
+        Integer known = dictionary.resolve(URI, List.of("/find/known")).get("/find/known");
+
+        assertThat(dictionary.find(URI, List.of("/find/known", "/find/unknown")))
+                .containsExactly(Map.entry("/find/known", known));
+    }
+
+    @Test
+    void decodeMapsIdsBackToNames() {
+        Integer app = dictionary.resolve(APP, List.of("decode-app")).get("decode-app");
+        Integer uri = dictionary.resolve(URI, List.of("/decode")).get("/decode");
+
+        assertThat(dictionary.decode(List.of(new HitCount(app, uri, 3L))))
+                .containsExactly(new ViewStatsDto("decode-app", "/decode", 3L));
+    }
+
+    @Test
+    void loadsEntriesAssignedByAnotherInstance() {
+        Integer app = dictionary.resolve(APP, List.of("shared-app")).get("shared-app");
+        Integer uri = dictionary.resolve(URI, List.of("/shared")).get("/shared");
+        HitDictionary fresh = new HitDictionary(repository);
+
+        assertThat(fresh.find(URI, List.of("/shared"))).containsExactly(Map.entry("/shared", uri));
+        assertThat(fresh.decode(List.of(new HitCount(app, uri, 1L))))
+                .containsExactly(new ViewStatsDto("shared-app", "/shared", 1L));
+    }
+
+    @Test
+    void matchUrisExpandsPatternsByPrefix() {
+        Map<String, Integer> ids = dictionary.resolve(URI,
+                List.of("/match/events/1", "/match/events/2", "/match/events/2/comments", "/match/eventsx", "/match_"));
+
+        Map<String, Set<Integer>> matches = dictionary.matchUris(
+                List.of("/match/events/*", "/match/events/{id}", "/match/eventsx", "/match_*", "/match/none/*"));
+
+        assertThat(matches.get("/match/events/*")).containsExactlyInAnyOrder(ids.get("/match/events/1"),
+                ids.get("/match/events/2"), ids.get("/match/events/2/comments"));
+        assertThat(matches.get("/match/events/{id}"))
+                .containsExactlyInAnyOrder(ids.get("/match/events/1"), ids.get("/match/events/2"));
+        assertThat(matches.get("/match/eventsx")).containsExactly(ids.get("/match/eventsx"));
+        assertThat(matches.get("/match_*")).containsExactly(ids.get("/match_"));
+        assertThat(matches.get("/match/none/*")).isEmpty();
+    }
+
+    @Test
+    void decodePatternsNamesRowsAfterPattern() {
+        Integer app = dictionary.resolve(APP, List.of("pattern-app")).get("pattern-app");
+
+        assertThat(dictionary.decodePatterns(Map.of("/events/*", Map.of(app, 5L), "/users/*", Map.of(app, 9L))))
+                .containsExactly(new ViewStatsDto("pattern-app", "/users/*", 9L),
+                        new ViewStatsDto("pattern-app", "/events/*", 5L));
+    }
+}
@@ -0,0 +1,102 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.CannotAcquireLockException;
+import ru.practicum.model.PartitionInterval;
+import ru.practicum.repository.HitPartitionRepository;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.repository.HitSketchRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class HitPartitionManagerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 7, 15, 13, 30);
+
+    private final HitPartitionRepository partitionRepository = Mockito.mock(HitPartitionRepository.class);
+    private final HitRollupRepository rollupRepository = Mockito.mock(HitRollupRepository.class);
+    private final HitSketchRepository sketchRepository = Mockito.mock(HitSketchRepository.class);
+
+    private HitPartitionManager manager(PartitionInterval interval, int retentionDays) {
+        return new HitPartitionManager(partitionRepository, rollupRepository, sketchRepository,
+                interval, 2, retentionDays);
+    }
+
+    @Test
+    void createsCurrentAndUpcomingDailyPartitions() {
+        when(partitionRepository.findPartitionNames())
+                .thenReturn(List.of("endpoint_hit_default", "endpoint_hit_p20250715"));
+
+        manager(PartitionInterval.DAY, 0).maintain(NOW);
+
+        verify(partitionRepository).createPartition("endpoint_hit_p20250716",
+                LocalDateTime.of(2025, 7, 16, 0, 0), LocalDateTime.of(2025, 7, 17, 0, 0));
+        verify(partitionRepository).createPartition("endpoint_hit_p20250717",
+                LocalDateTime.of(2025, 7, 17, 0, 0), LocalDateTime.of(2025, 7, 18, 0, 0));
+        verify(partitionRepository, times(2)).createPartition(anyString(), any(), any());
+        verify(partitionRepository, never()).dropPartition(anyString());
+        verifyNoInteractions(rollupRepository, sketchRepository);
+    }
+
+    @Test
+    void createsMonthlyPartitionsForRowsParkedInDefaultPartition() {
+        when(partitionRepository.findDefaultPartitionRanges(PartitionInterval.MONTH))
+                .thenReturn(List.of(LocalDateTime.of(2024, 2, 1, 0, 0)));
+
+        manager(PartitionInterval.MONTH, 0).maintain(NOW);
+
+        verify(partitionRepository).createPartition("endpoint_hit_p202402",
+                LocalDateTime.of(2024, 2, 1, 0, 0), LocalDateTime.of(2024, 3, 1, 0, 0));
+        verify(partitionRepository).createPartition("endpoint_hit_p202507",
+                LocalDateTime.of(2025, 7, 1, 0, 0), LocalDateTime.of(2025, 8, 1, 0, 0));
+    }
+
+    @Test
+    void dropsPartitionsOlderThanRetention() {
+        when(partitionRepository.findPartitionNames()).thenReturn(List.of(
+                "endpoint_hit_default",
+                "endpoint_hit_p20250704",
+                "endpoint_hit_p20250705",
+                "endpoint_hit_p20250706",
+                "endpoint_hit_p20250715"));
+
+        manager(PartitionInterval.DAY, 10).maintain(NOW);
+
+        LocalDateTime cutoff = LocalDateTime.of(2025, 7, 5, 0, 0);
+        verify(partitionRepository).dropPartition("endpoint_hit_p20250704");
+        verify(partitionRepository, times(1)).dropPartition(anyString());
+        verify(partitionRepository).deleteFromDefaultPartitionBefore(cutoff);
+        verify(rollupRepository).deleteBefore(cutoff);
+        verify(sketchRepository).deleteBefore(cutoff);
+    }
+
+    @Test
+    void doesNotRecreatePartitionsForExpiredParkedRows() {
+        when(partitionRepository.findDefaultPartitionRanges(PartitionInterval.DAY))
+                .thenReturn(List.of(LocalDateTime.of(2025, 6, 1, 0, 0)));
+
+        manager(PartitionInterval.DAY, 10).maintain(NOW);
+
+        verify(partitionRepository, never()).createPartition(eq("endpoint_hit_p20250601"), any(), any());
+    }
+
+    @Test
+    void keepsGoingWhenPartitionCannotBeCreated() {
+        when(partitionRepository.findPartitionNames()).thenReturn(List.of("endpoint_hit_default"));
+        doThrow(new CannotAcquireLockException("lock timeout")).when(partitionRepository)
+                .createPartition(eq("endpoint_hit_p20250715"), any(), any());
+
+        manager(PartitionInterval.DAY, 10).maintain(NOW);
+
+        verify(partitionRepository).createPartition(eq("endpoint_hit_p20250716"), any(), any());
+        verify(partitionRepository).createPartition(eq("endpoint_hit_p20250717"), any(), any());
+        verify(partitionRepository).deleteFromDefaultPartitionBefore(LocalDateTime.of(2025, 7, 5, 0, 0));
+        verify(rollupRepository).deleteBefore(LocalDateTime.of(2025, 7, 5, 0, 0));
+    }
+}
@@ -0,0 +1,190 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitBucketCount;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.HitKey;
+import ru.practicum.model.IpAddress;
+import ru.practicum.model.TimeSeriesInterval;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.repository.HitSketchRepository;
+import ru.practicum.repository.HitTimeSeriesRepository;
+import ru.practicum.repository.HitWriter;
+import ru.practicum.repository.MultiRowInsertHitWriter;
+import ru.practicum.repository.StatsRepository;
+import ru.practicum.repository.StatsStreamRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({MultiRowInsertHitWriter.class, HitRollupRepository.class, HitTimeSeriesRepository.class,
+        HitRollupService.class, HitSketchRepository.class, UniqueVisitorSketchService.class, HeavyHitterTracker.class,
+        RecentHitCounters.class, StatsResultCache.class, SimpleMeterRegistry.class, HitIngestor.class,
+        StatsMetrics.class, StatsStreamRepository.class})
+class HitRollupServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 7, 1, 0, 0);
+
+    @Autowired
+    private HitIngestor ingestor;
+
+    @Autowired
+    private HitRollupService rollupService;
+
+    @Autowired
+    private StatsRepository repository;
+
+    @Autowired
+    private HitWriter hitWriter;
+
+    @Autowired
+    private HitTimeSeriesRepository timeSeriesRepository;
+
+    @Autowired
+    private RecentHitCounters recentCounters;
+
+    private final Random random = new Random(42);
+
+    @BeforeEach
+    void setUp() {
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            hits.add(new EndpointHit(null, i % 7 == 0 ? 2 : 1, random.nextInt(10),
+                    IpAddress.parse("10.0.0." + random.nextInt(50)), BASE.plusSeconds(random.nextInt(3 * 24 * 3600))));
+        }
+        // a hit exactly on a bucket boundary and one exactly at a window end
+        hits.add(new EndpointHit(null, 1, 1, IpAddress.parse("10.0.0.1"), BASE.plusHours(5)));
+        hits.add(new EndpointHit(null, 1, 1, IpAddress.parse("10.0.0.1"), BASE.plusHours(30).plusSeconds(17)));
+        ingestor.ingest(hits.subList(0, 1500));
+        ingestor.ingest(hits.subList(1500, hits.size()));
+    }
+
+    @Test
+    void matchesRawCountsForRaggedWindows() {
+        for (int i = 0; i < 50; i++) {
+            LocalDateTime start = BASE.plusSeconds(random.nextInt(2 * 24 * 3600));
+            LocalDateTime end = start.plusSeconds(random.nextInt(24 * 3600));
+
+            assertThat(rollupService.getHits(start, end, null))
+                    .containsExactlyInAnyOrderElementsOf(repository.findAllStatsWithoutUris(start, end));
+        }
+    }
+
+    @Test
+    void matchesRawCountsForUriFilter() {
+        List<Integer> uriIds = List.of(1, 3);
+        for (int i = 0; i < 50; i++) {
+            LocalDateTime start = BASE.plusSeconds(random.nextInt(2 * 24 * 3600));
+            LocalDateTime end = start.plusSeconds(random.nextInt(24 * 3600));
+
+            assertThat(rollupService.getHits(start, end, uriIds))
+                    .containsExactlyInAnyOrderElementsOf(repository.findAllStatsWithUris(start, end, uriIds));
+        }
+    }
+
+    @Test
+    void matchesRawCountsForAlignedWindowBounds() {
+        LocalDateTime start = BASE.plusHours(5);
+        LocalDateTime end = BASE.plusHours(30).plusSeconds(17);
+
+        assertThat(rollupService.getHits(start, end, List.of(1)))
+                .containsExactlyInAnyOrderElementsOf(repository.findAllStatsWithUris(start, end, List.of(1)));
+        assertThat(rollupService.getHits(BASE, BASE.plusDays(3), null))
+                .containsExactlyInAnyOrderElementsOf(repository.findAllStatsWithoutUris(BASE, BASE.plusDays(3)));
+    }
+
+    @Test
+    void streamsPagesOfRawCountsInOrder() {
+        List<Integer> uriIds = List.of(1, 3, 4);
+        for (int i = 0; i < 20; i++) {
+            LocalDateTime start = BASE.plusSeconds(random.nextInt(2 * 24 * 3600));
+            LocalDateTime end = start.plusSeconds(random.nextInt(24 * 3600));
+            List<Integer> filter = i % 2 == 0 ? null : uriIds;
+            List<HitCount> expected = (filter == null
+                    ? repository.findAllStatsWithoutUris(start, end)
+                    : repository.findAllStatsWithUris(start, end, filter)).stream()
+                    .sorted(HitCount.BY_HITS_DESC)
+                    .toList();
+
+            List<HitCount> streamed = new ArrayList<>();
+            rollupService.streamHits(start, end, filter, 0, null, streamed::add);
+            List<HitCount> page = new ArrayList<>();
+            rollupService.streamHits(start, end, filter, 2, 3, page::add);
+
+            assertThat(streamed).containsExactlyElementsOf(expected);
+            assertThat(page).containsExactlyElementsOf(expected.subList(Math.min(2, expected.size()),
+                    Math.min(5, expected.size())));
+        }
+    }
+
+    @Test
+    void matchesRawSeriesForEveryInterval() {
+        for (TimeSeriesInterval interval : TimeSeriesInterval.values()) {
+            for (int i = 0; i < 10; i++) {
+                LocalDateTime start = BASE.plusSeconds(random.nextInt(24 * 3600));
+                LocalDateTime end = start.plusSeconds(random.nextInt(2 * 24 * 3600));
+
+                assertThat(rollupService.getHitSeries(start, end, List.of(1, 3), interval))
+                        .containsExactlyInAnyOrderElementsOf(
+                                timeSeriesRepository.countByBucket(interval, start, end, true, List.of(1, 3), false));
+            }
+        }
+    }
+
+    @Test
+    void seriesSumsToWindowTotals() {
+        LocalDateTime start = BASE.plusHours(5);
+        LocalDateTime end = BASE.plusHours(30).plusSeconds(17);
+        Map<HitKey, Long> totals = new HashMap<>();
+        for (HitBucketCount count : rollupService.getHitSeries(start, end, null, TimeSeriesInterval.HOUR)) {
+            assertThat(count.bucket()).isEqualTo(count.bucket().truncatedTo(ChronoUnit.HOURS));
+            totals.merge(new HitKey(count.appId(), count.uriId()), count.hits(), Long::sum);
+        }
+
+        assertThat(totals).isEqualTo(repository.findAllStatsWithoutUris(start, end).stream()
+                .collect(Collectors.toMap(HitCount::key, HitCount::hits)));
+    }
+
+    @Test
+    void sortsByHitsDescending() {
+        List<HitCount> stats = rollupService.getHits(BASE, BASE.plusDays(3), null);
+
+        assertThat(stats).isSortedAccordingTo((a, b) -> Long.compare(b.hits(), a.hits()));
+    }
+
+    @Test
+    void servesWholeMinutesFromRecentCounters() {
+        // raw rows only, no rollups: the whole minutes can only come from memory
+        LocalDateTime recent = LocalDateTime.now().plusHours(1);
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            hits.add(new EndpointHit(null, 1, random.nextInt(5), IpAddress.parse("10.0.0.1"),
+                    recent.plusSeconds(random.nextInt(2 * 3600))));
+        }
+        hitWriter.write(hits);
+        recentCounters.record(hits);
+
+        for (int i = 0; i < 20; i++) {
+            LocalDateTime start = recent.plusSeconds(random.nextInt(3600));
+            LocalDateTime end = start.plusSeconds(random.nextInt(3600));
+
+            assertThat(rollupService.getHits(start, end, null))
+                    .containsExactlyInAnyOrderElementsOf(repository.findAllStatsWithoutUris(start, end));
+        }
+    }
+}
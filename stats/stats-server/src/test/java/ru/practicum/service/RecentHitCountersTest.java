@@ -0,0 +1,67 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.IpAddress;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentHitCountersTest {
+
+    private static final LocalDateTime STARTED = LocalDateTime.of(2025, 7, 15, 12, 0, 30);
+    private static final LocalDateTime MINUTE = LocalDateTime.of(2025, 7, 15, 12, 1);
+
+    private final RecentHitCounters counters = new RecentHitCounters(true, Duration.ofMinutes(10), STARTED);
+
+    @Test
+    void sumsWholeMinutesPerAppAndUri() {
+        counters.record(List.of(
+                hit(1, 1, MINUTE.plusSeconds(5)),
+                hit(1, 1, MINUTE.plusMinutes(1)),
+                hit(1, 2, MINUTE.plusMinutes(1).plusSeconds(59)),
+                hit(2, 1, MINUTE.plusMinutes(2))));
+
+        assertThat(counters.sumHits(MINUTE, MINUTE.plusMinutes(2), null)).containsExactlyInAnyOrder(
+                new HitCount(1, 1, 2L),
+                new HitCount(1, 2, 1L));
+        assertThat(counters.sumHits(MINUTE, MINUTE.plusMinutes(3), List.of(1))).containsExactlyInAnyOrder(
+                new HitCount(1, 1, 2L),
+                new HitCount(2, 1, 1L));
+    }
+
+    @Test
+    void coversOnlyMinutesAfterStartupWithinRetention() {
+        LocalDateTime now = MINUTE.plusMinutes(5);
+
+        assertThat(counters.covers(MINUTE, MINUTE.plusMinutes(5), now)).isTrue();
+        assertThat(counters.covers(MINUTE.minusMinutes(1), MINUTE, now)).isFalse();
+        assertThat(counters.covers(MINUTE, MINUTE.plusMinutes(5), MINUTE.plusMinutes(10))).isFalse();
+        assertThat(counters.covers(MINUTE.plusMinutes(1), MINUTE.plusMinutes(12), now)).isFalse();
+        assertThat(new RecentHitCounters(false, Duration.ofMinutes(10), STARTED)
+                .covers(MINUTE, MINUTE.plusMinutes(5), now)).isFalse();
+    }
+
+    @Test
+    void stopsCoveringMinutesWhoseSlotWasReused() {
+        counters.record(List.of(hit(1, 1, MINUTE), hit(1, 1, MINUTE.plusMinutes(10))));
+
+        assertThat(counters.covers(MINUTE, MINUTE.plusMinutes(1), MINUTE.plusMinutes(5))).isFalse();
+        assertThat(counters.covers(MINUTE.plusMinutes(10), MINUTE.plusMinutes(11), MINUTE.plusMinutes(10))).isTrue();
+        assertThat(counters.sumHits(MINUTE.plusMinutes(10), MINUTE.plusMinutes(11), null))
+                .containsExactly(new HitCount(1, 1, 1L));
+
+        counters.record(List.of(hit(1, 2, MINUTE)));
+
+        assertThat(counters.sumHits(MINUTE, MINUTE.plusMinutes(11), null))
+                .containsExactly(new HitCount(1, 1, 1L));
+    }
+
+    private static EndpointHit hit(int appId, int uriId, LocalDateTime timestamp) {
+        return new EndpointHit(null, appId, uriId, IpAddress.parse("10.0.0.1"), timestamp);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.ViewStatsDto;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "stats.storage=segment")
+class SegmentStatsServiceTest {
+
+    @TempDir
+    static Path segments;
+
+    @DynamicPropertySource
+    static void segmentDirectory(DynamicPropertyRegistry registry) {
+        registry.add("stats.segment.directory", segments::toString);
+    }
+
+    @Autowired
+    private StatsService service;
+
+    @Test
+    void topStatsAcceptWindowBeyondIntegerMinutes() {
+        assertThat(service).isInstanceOf(SegmentStatsService.class);
+        service.saveHits(List.of(new EndpointHitDto("segment-top-test", "/top", "10.3.0.1", LocalDateTime.now())));
+
+        assertThat(service.getTopStats("segment-top-test", Duration.ofSeconds(Long.MAX_VALUE), 10, true))
+                .containsExactly(new ViewStatsDto("segment-top-test", "/top", 1L));
+        assertThat(service.getTopStats("segment-top-test", Duration.ofMinutes(Integer.MAX_VALUE + 1L), 10, false))
+                .containsExactly(new ViewStatsDto("segment-top-test", "/top", 1L));
+    }
+}
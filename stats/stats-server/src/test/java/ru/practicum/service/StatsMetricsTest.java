@@ -0,0 +1,38 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatsMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StatsMetrics metrics = new StatsMetrics(registry);
+
+    @Test
+    void recordsQueryLatencyAndRowsPerVariant() {
+        metrics.recordQuery("raw", true, true, () -> List.of(1, 2, 3));
+        metrics.recordQuery("raw", false, true, () -> List.of(1));
+        metrics.recordQuery("raw", false, true, () -> List.of());
+
+        assertThat(registry.get("stats.query.latency").tags("source", "raw", "uris", "false", "unique", "true")
+                .timer().count()).isEqualTo(2);
+        assertThat(registry.get("stats.query.rows").tags("source", "raw", "uris", "true", "unique", "true")
+                .summary().totalAmount()).isEqualTo(3.0);
+        assertThat(registry.find("stats.query.latency").tags("uris", "true", "unique", "false").timer()).isNull();
+    }
+
+    @Test
+    void recordsIngestRateAndBatchSizes() {
+        metrics.hitsAccepted(500);
+        metrics.recordInsert(500, () -> { });
+        metrics.recordInsert(20, () -> { });
+
+        assertThat(registry.get("stats.ingest.hits").counter().count()).isEqualTo(500.0);
+        assertThat(registry.get("stats.ingest.insert").timer().count()).isEqualTo(2);
+        assertThat(registry.get("stats.ingest.batch.size").summary().max()).isEqualTo(500.0);
+    }
+}
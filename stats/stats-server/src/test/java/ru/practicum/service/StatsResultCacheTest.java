@@ -0,0 +1,198 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.IpAddress;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatsResultCacheTest {
+
+    private static final LocalDateTime MINUTE = LocalDateTime.of(2025, 7, 15, 12, 0);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StatsResultCache cache = new StatsResultCache(registry, true, Duration.ofMinutes(1), 100,
+            Duration.ofMinutes(5));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void normalizesWindowAndUris() {
+        StatsResultCache.Key key = cache.normalize(MINUTE.plusSeconds(30), MINUTE.plusMinutes(4).plusSeconds(1),
+                List.of("/b", "/a", "/b"), true);
+
+        assertThat(key).isEqualTo(new StatsResultCache.Key(MINUTE, MINUTE.plusMinutes(5), List.of("/a", "/b"), true));
+        assertThat(cache.normalize(MINUTE, MINUTE.plusMinutes(5), List.of(), false).uris()).isNull();
+    }
+
+    @Test
+    void sharesEntryForAlignedWindowAndRecordsMetrics() {
+        get(MINUTE, MINUTE.plusMinutes(5));
+        get(MINUTE, MINUTE.plusMinutes(5));
+        get(MINUTE, MINUTE.plusMinutes(7));
+
+        assertThat(loads).hasValue(2);
+        assertThat(registry.get("cache.gets").tag("cache", "stats.query").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("cache.gets").tag("cache", "stats.query").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void loadsUnalignedWindowWithExactBoundsWithoutCaching() {
+        List<StatsResultCache.Key> keys = new ArrayList<>();
+        Function<StatsResultCache.Key, List<ViewStatsDto>> loader = key -> {
+            keys.add(key);
+            return load(key);
+        };
+
+        cache.get(MINUTE.plusSeconds(30), MINUTE.plusSeconds(45), List.of("/b", "/a"), false, loader);
+        cache.get(MINUTE.plusSeconds(30), MINUTE.plusSeconds(45), List.of("/b", "/a"), false, loader);
+
+        assertThat(loads).hasValue(2);
+        assertThat(keys).containsOnly(new StatsResultCache.Key(MINUTE.plusSeconds(30), MINUTE.plusSeconds(45),
+                List.of("/a", "/b"), false));
+    }
+
+    @Test
+    void doesNotCacheWindowReachingIntoOpenStep() {
+        LocalDateTime open = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+
+        get(open.minusMinutes(10), open.plusMinutes(1));
+        get(open.minusMinutes(10), open.plusMinutes(1));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void skipsScanForHitsAfterEveryCachedWindow() {
+        get(MINUTE, MINUTE.plusMinutes(10));
+
+        cache.invalidate(List.of(hit(MINUTE.plusMinutes(11))));
+        get(MINUTE, MINUTE.plusMinutes(10));
+
+        assertThat(loads).hasValue(1);
+        assertThat(registry.counter("stats.query.cache.invalidations").count()).isZero();
+    }
+
+    @Test
+    void invalidatesOnlyWindowsContainingNewHits() {
+        get(MINUTE, MINUTE.plusMinutes(10));
+        get(MINUTE.plusMinutes(20), MINUTE.plusMinutes(30));
+
+        cache.invalidate(List.of(hit(MINUTE.plusMinutes(25))));
+        get(MINUTE, MINUTE.plusMinutes(10));
+        get(MINUTE.plusMinutes(20), MINUTE.plusMinutes(30));
+
+        assertThat(loads).hasValue(3);
+        assertThat(registry.counter("stats.query.cache.invalidations").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void dropsResultStillLoadingWhenHitsArrive() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<ViewStatsDto>> stale = CompletableFuture.supplyAsync(() ->
+                cache.get(MINUTE, MINUTE.plusMinutes(10), null, false, key -> {
+                    started.countDown();
+                    await(release);
+                    return List.of(new ViewStatsDto("ewm", "/stale", 1L));
+                }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        cache.invalidate(List.of(hit(MINUTE.plusMinutes(5))));
+        release.countDown();
+        stale.get(5, TimeUnit.SECONDS);
+
+        assertThat(get(MINUTE, MINUTE.plusMinutes(10))).extracting(ViewStatsDto::getUri).containsExactly("/fresh");
+    }
+
+    @Test
+    void doesNotKeepFailedLoad() {
+        assertThatThrownBy(() -> cache.get(MINUTE, MINUTE.plusMinutes(5), null, false, key -> {
+            throw new IllegalStateException("database is down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        get(MINUTE, MINUTE.plusMinutes(5));
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void coalescedCallersGetTheLoadFailure() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<ViewStatsDto>> first = CompletableFuture.supplyAsync(() ->
+                cache.get(MINUTE, MINUTE.plusMinutes(5), null, false, key -> {
+                    started.countDown();
+                    await(release);
+                    throw new IllegalStateException("database is down");
+                }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        AtomicReference<Throwable> waiterFailure = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                get(MINUTE, MINUTE.plusMinutes(5));
+            } catch (RuntimeException e) {
+                waiterFailure.set(e);
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+
+        release.countDown();
+        waiter.join(5000);
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(waiterFailure.get()).isInstanceOf(IllegalStateException.class).hasMessage("database is down");
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void bypassesCacheWhenDisabled() {
+        StatsResultCache disabled = new StatsResultCache(registry, false, Duration.ofMinutes(1), 100,
+                Duration.ofMinutes(5));
+
+        disabled.get(MINUTE, MINUTE.plusMinutes(1), null, false, this::load);
+        disabled.get(MINUTE, MINUTE.plusMinutes(1), null, false, this::load);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private List<ViewStatsDto> get(LocalDateTime start, LocalDateTime end) {
+        return cache.get(start, end, null, false, this::load);
+    }
+
+    private List<ViewStatsDto> load(StatsResultCache.Key key) {
+        loads.incrementAndGet();
+        return List.of(new ViewStatsDto("ewm", "/fresh", 1L));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static EndpointHit hit(LocalDateTime timestamp) {
+        return new EndpointHit(null, 1, 1, IpAddress.parse("10.0.0.1"), timestamp);
+    }
+}
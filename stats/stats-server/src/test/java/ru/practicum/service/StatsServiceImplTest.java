@@ -0,0 +1,90 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.ViewStatsDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class StatsServiceImplTest {
+
+    private static final LocalDateTime MINUTE = LocalDateTime.of(2025, 3, 10, 10, 0);
+    private static final String URI = "/exact-window";
+
+    @Autowired
+    private StatsService service;
+
+    @Test
+    void countsOnlyHitsInsideUnalignedWindow() {
+        service.saveHits(List.of(
+                hit(MINUTE.plusSeconds(10), "10.0.0.1"),
+                hit(MINUTE.plusSeconds(29), "10.0.0.2"),
+                hit(MINUTE.plusSeconds(30), "10.0.0.3"),
+                hit(MINUTE.plusSeconds(40), "10.0.0.3"),
+                hit(MINUTE.plusSeconds(45), "10.0.0.4"),
+                hit(MINUTE.plusSeconds(46), "10.0.0.5"),
+                hit(MINUTE.plusSeconds(59), "10.0.0.6")));
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(hits(service.getStats(MINUTE.plusSeconds(30), MINUTE.plusSeconds(45), List.of(URI), false)))
+                    .isEqualTo(3L);
+            assertThat(hits(service.getStats(MINUTE.plusSeconds(30), MINUTE.plusSeconds(45), List.of(URI), true)))
+                    .isEqualTo(2L);
+        }
+        assertThat(hits(service.getStats(MINUTE, MINUTE.plusMinutes(1), List.of(URI), false))).isEqualTo(7L);
+    }
+
+    @Test
+    void countsPatternMatchingThousandsOfUris() {
+        int uris = 5000;
+        LocalDateTime timestamp = MINUTE.plusHours(1).plusSeconds(5);
+        service.saveHits(IntStream.range(0, uris)
+                .mapToObj(i -> new EndpointHitDto("many-uris-test", "/many/" + i, "10.1." + i % 200 + ".1", timestamp))
+                .toList());
+        LocalDateTime start = MINUTE.plusHours(1);
+        LocalDateTime end = start.plusMinutes(1);
+
+        assertThat(service.getStats(start, end, List.of("/many/*"), false)).hasSize(uris);
+        assertThat(service.getStats(start, end, List.of("/many/*"), true)).hasSize(uris);
+        assertThat(service.getPatternStats(start, end, List.of("/many/*"), false))
+                .containsExactly(new ViewStatsDto("many-uris-test", "/many/*", (long) uris));
+        assertThat(service.getPatternStats(start, end, List.of("/many/*"), true))
+                .containsExactly(new ViewStatsDto("many-uris-test", "/many/*", 200L));
+    }
+
+    @Test
+    void topStatsAcceptWindowBeyondIntegerMinutes() {
+        service.saveHits(List.of(new EndpointHitDto("top-window-test", "/top", "10.2.0.1", LocalDateTime.now())));
+
+        assertThat(service.getTopStats("top-window-test", Duration.ofSeconds(Long.MAX_VALUE), 10, true))
+                .containsExactly(new ViewStatsDto("top-window-test", "/top", 1L));
+    }
+
+    @Test
+    void countsHitsWhoseIpIsNotAnAddressLiteral() {
+        LocalDateTime timestamp = MINUTE.plusHours(2);
+        service.saveHits(List.of(
+                new EndpointHitDto("non-literal-ip-test", "/ip", "unknown", timestamp),
+                new EndpointHitDto("non-literal-ip-test", "/ip", "unknown", timestamp),
+                new EndpointHitDto("non-literal-ip-test", "/ip", "proxy.example", timestamp)));
+
+        assertThat(hits(service.getStats(timestamp, timestamp.plusMinutes(1), List.of("/ip"), false))).isEqualTo(3L);
+        assertThat(hits(service.getStats(timestamp, timestamp.plusMinutes(1), List.of("/ip"), true))).isEqualTo(2L);
+    }
+
+    private static long hits(List<ViewStatsDto> stats) {
+        return stats.isEmpty() ? 0 : stats.get(0).getHits();
+    }
+
+    private static EndpointHitDto hit(LocalDateTime timestamp, String ip) {
+        return new EndpointHitDto("exact-window-test", URI, ip, timestamp);
+    }
+}
@@ -0,0 +1,94 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitCount;
+import ru.practicum.model.IpAddress;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.repository.HitSketchRepository;
+import ru.practicum.repository.HitTimeSeriesRepository;
+import ru.practicum.repository.MultiRowInsertHitWriter;
+import ru.practicum.repository.StatsRepository;
+import ru.practicum.repository.StatsStreamRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DataJpaTest
+@Import({MultiRowInsertHitWriter.class, HitRollupRepository.class, HitTimeSeriesRepository.class,
+        HitRollupService.class, HitSketchRepository.class, UniqueVisitorSketchService.class, HeavyHitterTracker.class,
+        RecentHitCounters.class, StatsResultCache.class, SimpleMeterRegistry.class, HitIngestor.class,
+        StatsMetrics.class, StatsStreamRepository.class})
+class UniqueVisitorSketchServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 7, 1, 0, 0);
+
+    @Autowired
+    private HitIngestor ingestor;
+
+    @Autowired
+    private UniqueVisitorSketchService sketchService;
+
+    @Autowired
+    private StatsRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(7);
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < 6000; i++) {
+            hits.add(new EndpointHit(null, 1, random.nextInt(3),
+                    IpAddress.parse("10.0." + random.nextInt(8) + "." + random.nextInt(256)),
+                    BASE.plusSeconds(random.nextInt(2 * 24 * 3600))));
+        }
+        for (int from = 0; from < hits.size(); from += 1000) {
+            ingestor.ingest(hits.subList(from, from + 1000));
+        }
+    }
+
+    @Test
+    void approximatesExactUniqueCounts() {
+        LocalDateTime start = BASE.plusMinutes(97).plusSeconds(13);
+        LocalDateTime end = BASE.plusHours(40).plusSeconds(41);
+
+        Map<Integer, Long> exact = toMap(repository.findAllUniqueStatsWithoutUris(start, end));
+        Map<Integer, Long> approximate = toMap(sketchService.getUniqueHits(start, end, null));
+
+        assertThat(approximate).containsOnlyKeys(exact.keySet());
+        exact.forEach((uri, hits) -> assertThat((double) approximate.get(uri)).isCloseTo(hits, within(hits * 0.05)));
+    }
+
+    @Test
+    void filtersByUris() {
+        List<HitCount> stats = sketchService.getUniqueHits(BASE, BASE.plusDays(2), List.of(1));
+
+        assertThat(stats).extracting(HitCount::uriId).containsExactly(1);
+    }
+
+    @Test
+    void fallsBackToRawIpsInsideSingleHour() {
+        LocalDateTime start = BASE.plusHours(3).plusMinutes(5);
+        LocalDateTime end = BASE.plusHours(3).plusMinutes(50);
+
+        Map<Integer, Long> exact = toMap(repository.findAllUniqueStatsWithoutUris(start, end));
+        Map<Integer, Long> approximate = toMap(sketchService.getUniqueHits(start, end, null));
+
+        exact.forEach((uri, hits) -> assertThat(approximate.get(uri)).isCloseTo(hits, within(2L)));
+    }
+
+    private static Map<Integer, Long> toMap(List<HitCount> stats) {
+        return stats.stream().collect(Collectors.toMap(HitCount::uriId, HitCount::hits));
+    }
+}
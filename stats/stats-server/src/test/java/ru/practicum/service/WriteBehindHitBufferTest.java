@@ -0,0 +1,101 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.IpAddress;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class WriteBehindHitBufferTest {
+
+    private final HitIngestor ingestor = Mockito.mock(HitIngestor.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private WriteBehindHitBuffer buffer(int capacity, int batchSize, Duration maxLossWindow) {
+        return new WriteBehindHitBuffer(ingestor, registry, capacity, batchSize, maxLossWindow,
+                true, Duration.ofSeconds(5));
+    }
+
+    private static EndpointHit hit(int uriId) {
+        return new EndpointHit(null, 1, uriId, IpAddress.parse("127.0.0.1"), LocalDateTime.of(2025, 7, 15, 12, 0));
+    }
+
+    @Test
+    void flushesFullBatchWithoutWaitingForTimeTrigger() {
+        WriteBehindHitBuffer buffer = buffer(100, 3, Duration.ofMinutes(1));
+        buffer.start();
+
+        buffer.addAll(List.of(hit(1), hit(2), hit(3)));
+
+        verify(ingestor, timeout(2000)).ingest(argThat(batch -> batch.size() == 3));
+        buffer.stop();
+    }
+
+    @Test
+    void flushesPartialBatchAfterMaxLossWindow() {
+        WriteBehindHitBuffer buffer = buffer(100, 1000, Duration.ofMillis(50));
+        buffer.start();
+
+        buffer.add(hit(1));
+
+        verify(ingestor, timeout(2000)).ingest(argThat(batch -> batch.size() == 1));
+        buffer.stop();
+    }
+
+    @Test
+    void flushesRemainingHitsOnShutdown() {
+        WriteBehindHitBuffer buffer = buffer(100, 1000, Duration.ofMinutes(1));
+        buffer.start();
+        buffer.addAll(List.of(hit(1), hit(2)));
+
+        buffer.stop();
+
+        verify(ingestor).ingest(argThat(batch -> batch.size() == 2));
+        assertThat(buffer.depth()).isZero();
+        assertThat(registry.get("stats.ingest.buffer.depth").gauge().value()).isZero();
+        assertThat(registry.counter("stats.ingest.buffer.flushed").count()).isEqualTo(2);
+    }
+
+    @Test
+    void writesSynchronouslyWhenBufferIsFull() throws InterruptedException {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals("stats-write-behind-flusher")) {
+                flushing.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(ingestor).ingest(anyList());
+        WriteBehindHitBuffer buffer = buffer(2, 1, Duration.ofMillis(100));
+        buffer.start();
+        try {
+            buffer.add(hit(1));
+            assertThat(flushing.await(5, TimeUnit.SECONDS)).isTrue();
+            buffer.addAll(List.of(hit(2), hit(3)));
+            assertThat(buffer.depth()).isEqualTo(2);
+
+            EndpointHit overflow = hit(4);
+            buffer.add(overflow);
+
+            verify(ingestor).ingest(List.of(overflow));
+            assertThat(buffer.depth()).isEqualTo(2);
+            assertThat(registry.counter("stats.ingest.buffer.overflow").count()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            buffer.stop();
+        }
+        assertThat(registry.counter("stats.ingest.buffer.flushed").count()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,98 @@
+package ru.practicum.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesSmallCardinalityExactlyEnough() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (int i = 0; i < 100; i++) {
+            sketch.add("10.0.0." + i);
+            sketch.add("10.0.0." + i);
+        }
+
+        assertThat(sketch.estimate()).isCloseTo(100L, within(2L));
+    }
+
+    @Test
+    void estimatesLargeCardinalityWithinErrorBound() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        int distinct = 200_000;
+        for (int i = 0; i < distinct; i++) {
+            sketch.add("10." + (i >> 16) + "." + ((i >> 8) & 0xff) + "." + (i & 0xff));
+        }
+
+        // three standard errors of 1.04 / sqrt(4096)
+        assertThat((double) sketch.estimate()).isCloseTo(distinct, within(distinct * 0.049));
+    }
+
+    @Test
+    void mergeEqualsSketchOfUnion() {
+        HyperLogLog left = new HyperLogLog(12);
+        HyperLogLog right = new HyperLogLog(12);
+        HyperLogLog union = new HyperLogLog(12);
+        for (int i = 0; i < 5000; i++) {
+            String ip = "192.168." + (i / 256) + "." + (i % 256);
+            (i % 2 == 0 ? left : right).add(ip);
+            if (i % 3 == 0) {
+                left.add(ip);
+            }
+            union.add(ip);
+        }
+
+        left.merge(right);
+
+        assertThat(left.toBytes()).isEqualTo(union.toBytes());
+    }
+
+    @Test
+    void roundTripsSparseAndDenseEncodings() {
+        HyperLogLog sparse = new HyperLogLog(12);
+        sparse.add("127.0.0.1");
+        HyperLogLog dense = new HyperLogLog(12);
+        for (int i = 0; i < 50_000; i++) {
+            dense.add("ip-" + i);
+        }
+
+        assertThat(sparse.toBytes()).hasSizeLessThan(16);
+        assertThat(HyperLogLog.fromBytes(sparse.toBytes()).estimate()).isEqualTo(sparse.estimate());
+        assertThat(HyperLogLog.fromBytes(dense.toBytes()).estimate()).isEqualTo(dense.estimate());
+    }
+
+    @Test
+    void foldsToTheSketchOfLowerPrecision() {
+        HyperLogLog high = new HyperLogLog(12);
+        HyperLogLog low = new HyperLogLog(10);
+        for (int i = 0; i < 5_000; i++) {
+            high.add("10.0." + i / 256 + "." + i % 256);
+            low.add("10.0." + i / 256 + "." + i % 256);
+        }
+
+        assertThat(high.withPrecision(10).toBytes()).isEqualTo(low.toBytes());
+        assertThatThrownBy(() -> low.withPrecision(12)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void mergesDifferentPrecisionAtTheLowerOne() {
+        HyperLogLog high = new HyperLogLog(12);
+        HyperLogLog low = new HyperLogLog(10);
+        HyperLogLog union = new HyperLogLog(10);
+        for (int i = 0; i < 4_000; i++) {
+            (i % 2 == 0 ? high : low).add("visitor-" + i);
+            union.add("visitor-" + i);
+        }
+        HyperLogLog lowIntoHigh = HyperLogLog.fromBytes(high.toBytes());
+        lowIntoHigh.merge(low);
+        HyperLogLog highIntoLow = HyperLogLog.fromBytes(low.toBytes());
+        highIntoLow.merge(high);
+
+        assertThat(lowIntoHigh.getPrecision()).isEqualTo(10);
+        assertThat(lowIntoHigh.toBytes()).isEqualTo(union.toBytes());
+        assertThat(highIntoLow.toBytes()).isEqualTo(union.toBytes());
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceSavingTest {
+
+    @Test
+    void countsExactlyWhileBelowCapacity() {
+        SpaceSaving sketch = new SpaceSaving(10);
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j <= i; j++) {
+                sketch.offer(i, 1);
+            }
+        }
+
+        assertThat(counters(sketch)).containsExactlyInAnyOrderEntriesOf(Map.of(0, 1L, 1, 2L, 2, 3L, 3, 4L, 4, 5L));
+        assertThat(sketch.getTotal()).isEqualTo(15);
+    }
+
+    @Test
+    void keepsHeavyHittersWithinErrorBound() {
+        SpaceSaving sketch = new SpaceSaving(50);
+        Map<Integer, Long> exact = new HashMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            // a few hot keys on top of a long uniform tail
+            int key = random.nextInt(4) == 0 ? random.nextInt(5) : 100 + random.nextInt(10_000);
+            sketch.offer(key, 1);
+            exact.merge(key, 1L, Long::sum);
+        }
+        Map<Integer, Long> counters = counters(sketch);
+        long maxError = sketch.getTotal() / sketch.getCapacity();
+
+        assertThat(counters).hasSize(50).containsKeys(0, 1, 2, 3, 4);
+        counters.forEach((key, count) -> assertThat(count).isBetween(exact.get(key), exact.get(key) + maxError));
+    }
+
+    private static Map<Integer, Long> counters(SpaceSaving sketch) {
+        Map<Integer, Long> counters = new HashMap<>();
+        sketch.forEach(counters::put);
+        return counters;
+    }
+}